@@ -0,0 +1,98 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.wildAnimalsGenome.journal.BreedingJournal;
+import org.terasology.wildAnimalsGenome.journal.BreedingJournalReader;
+import org.terasology.wildAnimalsGenome.journal.BreedingJournalWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures appending a record to the breeding journal, including segment rotation, and reading a journal back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BreedingJournalBenchmark {
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    private static final int RECORDS_TO_READ = 1 << 17;
+
+    private Path writeDirectory;
+    private Path readDirectory;
+    private BreedingJournalWriter writer;
+    private long timestamp;
+
+    @Setup(Level.Trial)
+    public void setUpReadJournal() throws IOException {
+        readDirectory = Files.createTempDirectory("breedingJournalRead");
+        try (BreedingJournalWriter readWriter = new BreedingJournalWriter(readDirectory, RECORDS_PER_SEGMENT)) {
+            for (int i = 0; i < RECORDS_TO_READ; i++) {
+                readWriter.append(i, BreedingJournal.BIRTH, 1, i, i + 1, i + 2, i);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpWriter() throws IOException {
+        writeDirectory = Files.createTempDirectory("breedingJournalWrite");
+        writer = new BreedingJournalWriter(writeDirectory, RECORDS_PER_SEGMENT);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownWriter() throws IOException {
+        writer.close();
+        delete(writeDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownReadJournal() throws IOException {
+        delete(readDirectory);
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        timestamp++;
+        writer.append(timestamp, BreedingJournal.BIRTH, 1, timestamp, timestamp + 1, timestamp + 2, timestamp);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long readAll() throws IOException {
+        long sum = 0;
+        try (BreedingJournalReader reader = new BreedingJournalReader(readDirectory)) {
+            while (reader.next()) {
+                sum += reader.getGenes();
+            }
+        }
+        return sum;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
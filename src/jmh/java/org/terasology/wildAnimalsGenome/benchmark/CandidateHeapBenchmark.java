@@ -0,0 +1,62 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.wildAnimalsGenome.pairing.CandidateHeap;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one mate choice: offering every candidate of a search to the heap of the best four, then picking one of
+ * them by score.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CandidateHeapBenchmark {
+    private static final int MATE_CHOICE_CANDIDATES = 4;
+
+    @Param({"8", "64", "512"})
+    private int candidateCount;
+
+    private CandidateHeap<Integer> heap;
+    private Integer[] candidates;
+    private double[] scores;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        heap = new CandidateHeap<>(MATE_CHOICE_CANDIDATES);
+        random = new SplittableRandom(1);
+        candidates = new Integer[candidateCount];
+        scores = new double[candidateCount];
+        for (int i = 0; i < candidateCount; i++) {
+            candidates[i] = i;
+            scores[i] = random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public Integer chooseMate() {
+        heap.clear();
+        for (int i = 0; i < candidateCount; i++) {
+            heap.offer(candidates[i], scores[i]);
+        }
+        return heap.pickWeighted(random);
+    }
+}
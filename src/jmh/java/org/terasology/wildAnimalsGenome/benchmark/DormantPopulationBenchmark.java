@@ -0,0 +1,65 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+import org.terasology.wildAnimalsGenome.population.DormantPopulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the statistical breeding of a dormant region, whose cost grows with the number of births per step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DormantPopulationBenchmark {
+    private static final double BIRTH_RATE = 0.02;
+    private static final double DEATH_RATE = 0.01;
+
+    @Param({"10", "100", "1000"})
+    private int populationSize;
+
+    private final TraitSchema schema = TraitSchema.createDefault();
+    private DormantPopulation population;
+    private SplittableRandom random;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new SplittableRandom(1);
+        population = new DormantPopulation("deer", "WildAnimals:deer", 0);
+        for (int i = 0; i < populationSize; i++) {
+            population.add(random.nextLong() & schema.getGenomeMask(), 0, 0, 0);
+        }
+    }
+
+    @Benchmark
+    public int step() {
+        // A capacity of twice the size keeps the population near its initial size over an iteration.
+        return population.step(random, BIRTH_RATE, DEATH_RATE, 2 * populationSize, schema);
+    }
+
+    @Benchmark
+    public long removeAndAddRandom() {
+        // Keeps the size constant, so that every invocation removes from a population of the same size.
+        long genes = population.removeRandom(random);
+        population.add(genes, 0, 0, 0);
+        return genes;
+    }
+}
@@ -0,0 +1,78 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.wildAnimalsGenome.genetics.ParentTraitSnapshot;
+import org.terasology.wildAnimalsGenome.genetics.Trait;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-offspring genetics: crossover with mutation, expression of a trait, and the gene strings stored
+ * in Genome's component.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneticsBenchmark {
+    private TraitSchema schema;
+    private ParentTraitSnapshot parents;
+    private SplittableRandom random;
+    private long genes;
+    private String geneString;
+
+    @Setup
+    public void setUp() {
+        schema = TraitSchema.createDefault();
+        random = new SplittableRandom(1);
+        long genes1 = random.nextLong() & schema.getGenomeMask();
+        long genes2 = random.nextLong() & schema.getGenomeMask();
+        parents = new ParentTraitSnapshot(schema, 1, genes1, 2, genes2);
+        genes = genes1;
+        geneString = schema.toGeneString(genes1);
+    }
+
+    @Benchmark
+    public long breedOffspring() {
+        return parents.breedOffspring(random);
+    }
+
+    @Benchmark
+    public float breedAndExpressSpeed() {
+        return schema.express(parents.breedOffspring(random), Trait.SPEED);
+    }
+
+    @Benchmark
+    public float expressAllTraits() {
+        float sum = 0;
+        for (Trait trait : Trait.values()) {
+            sum += schema.express(genes, trait);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public String toGeneString() {
+        return schema.toGeneString(genes);
+    }
+
+    @Benchmark
+    public long parseGeneString() {
+        return schema.parseGeneString(geneString);
+    }
+}
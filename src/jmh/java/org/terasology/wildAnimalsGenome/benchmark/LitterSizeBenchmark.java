@@ -0,0 +1,66 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.wildAnimalsGenome.util.IntAliasSampler;
+import org.terasology.wildAnimalsGenome.util.RandomCollection;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares drawing a litter size from the shared alias sampler with the {@link RandomCollection} it replaced, both
+ * with the default litter size weights.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LitterSizeBenchmark {
+    private IntAliasSampler sampler;
+    private SplittableRandom random;
+    private RandomCollection<Integer> randomCollection;
+
+    @Setup
+    public void setUp() {
+        sampler = new IntAliasSampler(new double[]{95, 4.5, 0.5}, new int[]{1, 2, 3});
+        random = new SplittableRandom(1);
+        randomCollection = new RandomCollection<>(new Random(1));
+        randomCollection.add(95, 1);
+        randomCollection.add(4.5, 2);
+        randomCollection.add(0.5, 3);
+    }
+
+    @Benchmark
+    public int aliasSamplerNext() {
+        return sampler.next(random);
+    }
+
+    @Benchmark
+    public int randomCollectionNext() {
+        return randomCollection.next();
+    }
+
+    @Benchmark
+    public int buildRandomCollectionAndDraw() {
+        // The original litter size code built a new collection for every mating.
+        RandomCollection<Integer> collection = new RandomCollection<>(new Random(random.nextLong()));
+        collection.add(95, 1);
+        collection.add(4.5, 2);
+        collection.add(0.5, 3);
+        return collection.next();
+    }
+}
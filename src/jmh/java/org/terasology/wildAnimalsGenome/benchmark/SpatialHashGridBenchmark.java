@@ -0,0 +1,86 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasology.wildAnimalsGenome.util.SpatialHashGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mate candidate lookup of the spatial index, with the animals spread at the density of a populated
+ * area: about one animal per 10x10 block column.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpatialHashGridBenchmark {
+    private static final float CELL_SIZE = 16;
+    private static final float SEARCH_RADIUS = 16;
+
+    @Param({"100", "1000", "10000"})
+    private int animalCount;
+
+    private SpatialHashGrid<Integer> grid;
+    private float[] positions;
+    private final List<Integer> result = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1);
+        float extent = (float) Math.sqrt(animalCount) * 10;
+        grid = new SpatialHashGrid<>(CELL_SIZE);
+        positions = new float[animalCount * 3];
+        for (int i = 0; i < animalCount; i++) {
+            positions[3 * i] = (float) random.nextDouble(extent);
+            positions[3 * i + 1] = (float) random.nextDouble(8);
+            positions[3 * i + 2] = (float) random.nextDouble(extent);
+            grid.put(i, positions[3 * i], positions[3 * i + 1], positions[3 * i + 2]);
+        }
+    }
+
+    @Benchmark
+    public int findNearbyAnimals() {
+        int animal = nextAnimal();
+        result.clear();
+        grid.query(positions[3 * animal], positions[3 * animal + 1], positions[3 * animal + 2], SEARCH_RADIUS, result);
+        return result.size();
+    }
+
+    @Benchmark
+    public void visitNearbyAnimals(Blackhole blackhole) {
+        int animal = nextAnimal();
+        grid.query(positions[3 * animal], positions[3 * animal + 1], positions[3 * animal + 2], SEARCH_RADIUS,
+                (candidate, distanceSquared) -> blackhole.consume(distanceSquared));
+    }
+
+    @Benchmark
+    public void moveAnimal() {
+        int animal = nextAnimal();
+        positions[3 * animal] += 0.5f;
+        grid.put(animal, positions[3 * animal], positions[3 * animal + 1], positions[3 * animal + 2]);
+    }
+
+    private int nextAnimal() {
+        next = next + 1 == animalCount ? 0 : next + 1;
+        return next;
+    }
+}
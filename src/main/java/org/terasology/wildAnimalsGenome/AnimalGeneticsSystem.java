@@ -2,40 +2,77 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.wildAnimalsGenome;
 
-import com.google.common.base.Function;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.core.Time;
+import org.terasology.engine.entitySystem.entity.EntityBuilder;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
+import org.terasology.engine.entitySystem.prefab.Prefab;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.engine.logic.characters.CharacterMovementComponent;
+import org.terasology.engine.logic.location.LocationComponent;
 import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
 import org.terasology.engine.world.WorldProvider;
 import org.terasology.genome.GenomeDefinition;
 import org.terasology.genome.GenomeRegistry;
-import org.terasology.genome.breed.BreedingAlgorithm;
-import org.terasology.genome.breed.FavourableWeightedBreedingAlgorithm;
 import org.terasology.genome.component.GenomeComponent;
 import org.terasology.genome.events.OnBreed;
-import org.terasology.genome.genomeMap.SeedBasedGenomeMap;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.wildAnimalsGenome.component.AnimalGenomeComponent;
 import org.terasology.wildAnimalsGenome.component.MatingComponent;
+import org.terasology.wildAnimalsGenome.event.MatingCleanupEvent;
 import org.terasology.wildAnimalsGenome.event.MatingInitiatedEvent;
-import org.terasology.wildAnimalsGenome.util.RandomCollection;
+import org.terasology.wildAnimalsGenome.event.OffspringCreatedEvent;
+import org.terasology.wildAnimalsGenome.genetics.ParentTraitSnapshot;
+import org.terasology.wildAnimalsGenome.genetics.SpeciesGenomes;
+import org.terasology.wildAnimalsGenome.genetics.Trait;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+import org.terasology.wildAnimalsGenome.metrics.BreedingMetrics;
+import org.terasology.wildAnimalsGenome.metrics.PairLifecycleTracer;
 
-import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * This system handles the integration of Genome with the mating system.
+ * This system handles the inheritance of traits when animals mate.
+ * <p>
+ * The genomes and expressed traits of a litter are computed on {@link #geneticsPool} from an immutable
+ * {@link ParentTraitSnapshot}. Finished litters are handed back through {@link #completedLitters}, and their entities
+ * are created on the main thread in {@link #update(float)}.
+ * <p>
+ * Every species is registered once with the {@link GenomeRegistry} as {@code WildAnimals:<species>}, with a
+ * {@link GenomeDefinition} backed by its {@link TraitSchema}. Parents and offspring carry their genes both in an
+ * {@link AnimalGenomeComponent} and as a gene string in a {@link GenomeComponent}. Offspring bred here are announced
+ * with an {@link OffspringCreatedEvent} rather than {@link OnBreed}, which would make Genome cross the parents a second
+ * time; offspring which Genome breeds from an {@link OnBreed} sent elsewhere are picked up in
+ * {@link #onGenomeBreed(OnBreed, EntityRef)}.
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
-public class AnimalGeneticsSystem extends BaseComponentSystem {
+@Share(AnimalGeneticsSystem.class)
+public class AnimalGeneticsSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+    /**
+     * Maximum number of offspring created per tick, so that a breeding spike is spread over several frames.
+     */
+    public static final int MAX_OFFSPRING_PER_TICK = 4;
 
     private static final String GENOME_REGISTRY_PREFIX = "WildAnimals:";
 
-    private static final Double SIBLINGS_NORMAL_PROBABILITY = 95.0;
-    private static final Double SIBLINGS_TWINS_PROBABILITY = 4.5;
-    private static final Double SIBLINGS_TRIPLETS_PROBABILITY = 0.5;
+    private static final Logger logger = LoggerFactory.getLogger(AnimalGeneticsSystem.class);
 
     @In
     private GenomeRegistry genomeRegistry;
@@ -43,16 +80,93 @@ public class AnimalGeneticsSystem extends BaseComponentSystem {
     private EntityManager entityManager;
     @In
     private WorldProvider worldProvider;
+    @In
+    private BreedingMetricsSystem metricsSystem;
+    @In
+    private Time time;
+    @In
+    private BreedingProfileSystem profiles;
+
+    /**
+     * Litters whose genetics were computed, in the order they completed. Filled by the workers of
+     * {@link #geneticsPool}, drained by the main thread.
+     */
+    private final Queue<Litter> completedLitters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Litters whose genetics were computed and whose offspring are being spawned. Only used by the main thread.
+     */
+    private final Deque<Litter> pendingLitters = new ArrayDeque<>();
+
+    private ForkJoinPool geneticsPool;
+
+    private SplittableRandom random;
+
+    private SpeciesGenomes speciesGenomes;
+
+    private BreedingMetrics metrics;
+    private PairLifecycleTracer tracer;
+
+    /**
+     * Number of queued offspring which have not been spawned yet.
+     */
+    private int pendingOffspring;
+
+    @Override
+    public void initialise() {
+        metrics = metricsSystem.getMetrics();
+        tracer = metricsSystem.getTracer();
+        geneticsPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    @Override
+    public void shutdown() {
+        if (geneticsPool != null) {
+            geneticsPool.shutdownNow();
+            geneticsPool = null;
+        }
+        completedLitters.clear();
+        pendingLitters.clear();
+        pendingOffspring = 0;
+    }
 
-    private BreedingAlgorithm breedingAlgorithm;
+    @Override
+    public void postBegin() {
+        random = new SplittableRandom(worldProvider.getSeed().hashCode());
+        registerSpeciesGenomes();
+        metrics.setTraitSchemas(profiles.size());
+    }
 
     @Override
-    public void preBegin() {
-        breedingAlgorithm = new FavourableWeightedBreedingAlgorithm(0, 0.6f);
+    public void update(float delta) {
+        Litter completed;
+        while ((completed = completedLitters.poll()) != null) {
+            if (completed.failed) {
+                pendingOffspring -= completed.size;
+            } else {
+                pendingLitters.add(completed);
+            }
+        }
+
+        int budget = MAX_OFFSPRING_PER_TICK;
+        while (budget > 0 && !pendingLitters.isEmpty()) {
+            Litter litter = pendingLitters.peek();
+            while (budget > 0 && litter.spawned < litter.size) {
+                spawnOffspring(litter);
+                litter.spawned++;
+                pendingOffspring--;
+                budget--;
+            }
+            if (litter.spawned == litter.size) {
+                pendingLitters.poll();
+            }
+        }
+        metrics.setPendingOffspring(pendingOffspring);
     }
 
     /**
-     * Encodes the properties into genes dynamically and sends a {@link OnBreed} event.
+     * Starts computing the genetics of a litter for the mating pair and releases the parents with a single
+     * {@link MatingCleanupEvent}.
      *
      * @param event
      * @param entityRef
@@ -60,81 +174,259 @@ public class AnimalGeneticsSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void onMatingStart(MatingInitiatedEvent event, EntityRef entityRef, MatingComponent matingComponent) {
-        // Build a unique genomeID for insertion into the registry.
-        String genomeID = GENOME_REGISTRY_PREFIX + event.animal1.getId() + ":" + event.animal2.getId();
-        addPropertyMap(event.animal1, event.animal2, genomeID);
+        LocationComponent locationComponent = entityRef.getComponent(LocationComponent.class);
+        Vector3f spawnPosition = locationComponent.getWorldPosition(new Vector3f());
+        Vector3f offset = locationComponent.getWorldDirection(new Vector3f());
+        spawnPosition.add(offset.mul(2));
 
-        if (!event.animal1.hasComponent(GenomeComponent.class)) {
-            event.animal1.addComponent(new GenomeComponent());
+        int species = profiles.getSpecies(event.animal1);
+        Litter litter = new Litter(event.animal1, event.animal2, captureParents(species, event.animal1, event.animal2),
+                getOffspringPrefab(species, event.animal1.getParentPrefab()), spawnPosition, getSiblings(species));
+        pendingOffspring += litter.size;
+        // SplittableRandom is not thread safe, so every litter gets its own generator split off on the main thread.
+        SplittableRandom litterRandom = random.split();
+        try {
+            geneticsPool.execute(() -> computeGenetics(litter, litterRandom));
+        } catch (RejectedExecutionException e) {
+            computeGenetics(litter, litterRandom);
         }
+        entityRef.send(new MatingCleanupEvent(event.animal1, event.animal2));
+    }
 
-        if (!event.animal2.hasComponent(GenomeComponent.class)) {
-            event.animal2.addComponent(new GenomeComponent());
+    /**
+     * Creates an animal with the given genome, with its expressed traits and position applied before it is activated.
+     */
+    public EntityRef createAnimal(Prefab prefab, TraitSchema schema, long genes, Vector3fc position) {
+        return buildAnimal(prefab, schema, genes, schema.express(genes, Trait.SPEED), position);
+    }
+
+    /**
+     * Returns the genes of an animal. Animals which have not been bred (e.g. spawned in the wild) get founder genes
+     * matching their current speed, with the remaining traits drawn at random.
+     */
+    public long getOrCreateGenes(EntityRef animal) {
+        return getOrCreateGenes(animal, profiles.getSpecies(animal));
+    }
+
+    /**
+     * Adopts the genes of an offspring which Genome bred from two animals of a registered species, expressing them like
+     * those of offspring bred by this system. Runs after Genome has added the {@link GenomeComponent} of the offspring.
+     */
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onGenomeBreed(OnBreed event, EntityRef entityRef) {
+        EntityRef offspring = event.getOffspring();
+        GenomeComponent genomeComponent = offspring.getComponent(GenomeComponent.class);
+        if (genomeComponent == null || offspring.hasComponent(AnimalGenomeComponent.class)) {
+            return;
         }
+        int species = speciesGenomes.getSpecies(genomeComponent.genomeId);
+        if (species < 0 || !profiles.getSchema(species).isGeneString(genomeComponent.genes)) {
+            return;
+        }
+        TraitSchema schema = profiles.getSchema(species);
+        AnimalGenomeComponent animalGenomeComponent = new AnimalGenomeComponent();
+        animalGenomeComponent.genes = schema.parseGeneString(genomeComponent.genes);
+        offspring.addComponent(animalGenomeComponent);
+        CharacterMovementComponent movementComponent = offspring.getComponent(CharacterMovementComponent.class);
+        if (movementComponent != null && schema.has(Trait.SPEED)) {
+            movementComponent.speedMultiplier = schema.express(animalGenomeComponent.genes, Trait.SPEED);
+            offspring.saveComponent(movementComponent);
+        }
+        offspring.send(new OffspringCreatedEvent(event.getOrganism1(), event.getOrganism2(), offspring));
+    }
 
-        Float speedMultiplier1 = event.animal1.getComponent(CharacterMovementComponent.class).speedMultiplier;
-        Float speedMultiplier2 = event.animal2.getComponent(CharacterMovementComponent.class).speedMultiplier;
+    /**
+     * @return The ID under which the genome definition of a species is registered with the {@link GenomeRegistry}.
+     */
+    public String getGenomeId(int species) {
+        return speciesGenomes.getGenomeId(species);
+    }
 
-        GenomeComponent genomeComponent1 = event.animal1.getComponent(GenomeComponent.class);
-        GenomeComponent genomeComponent2 = event.animal2.getComponent(GenomeComponent.class);
+    /**
+     * Returns the trait schema of the animals created from a prefab.
+     */
+    public TraitSchema getSchema(Prefab prefab) {
+        return profiles.getSchema(profiles.getSpecies(prefab));
+    }
 
-        genomeComponent1.genes = speedMultiplier1 >= speedMultiplier2 ? "B" : "A";
-        genomeComponent2.genes = speedMultiplier1 >= speedMultiplier2 ? "A" : "B";
+    /**
+     * Registers one genome definition per species, so that the registry grows with the number of species only.
+     */
+    private void registerSpeciesGenomes() {
+        String[] speciesNames = new String[profiles.size()];
+        TraitSchema[] schemas = new TraitSchema[profiles.size()];
+        for (int species = 0; species < speciesNames.length; species++) {
+            speciesNames[species] = profiles.getSpeciesName(species);
+            schemas[species] = profiles.getSchema(species);
+        }
+        speciesGenomes = new SpeciesGenomes(genomeRegistry, GENOME_REGISTRY_PREFIX, speciesNames, schemas, random);
+    }
 
-        genomeComponent1.genomeId = genomeID;
-        genomeComponent2.genomeId = genomeID;
+    /**
+     * Breeds the genomes of every offspring of a litter and expresses their traits, then hands the litter back to the
+     * main thread. Runs on {@link #geneticsPool} and only touches the litter and its own random generator.
+     */
+    private void computeGenetics(Litter litter, SplittableRandom litterRandom) {
+        try {
+            TraitSchema schema = litter.parents.getSchema();
+            for (int i = 0; i < litter.size; i++) {
+                litter.genes[i] = litter.parents.breedOffspring(litterRandom);
+                litter.speedMultipliers[i] = schema.express(litter.genes[i], Trait.SPEED);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not compute the genetics of the offspring of {} and {}", litter.parents.getParent1Id(),
+                    litter.parents.getParent2Id(), e);
+            litter.failed = true;
+        }
+        completedLitters.add(litter);
+    }
+
+    /**
+     * Creates the next offspring of the litter from its computed genome and sends a {@link OffspringCreatedEvent}.
+     */
+    private void spawnOffspring(Litter litter) {
+        int index = litter.spawned;
+        EntityRef offspring = buildAnimal(litter.offspringPrefab, litter.parents.getSchema(), litter.genes[index],
+                litter.speedMultipliers[index], litter.spawnPosition);
+
+        offspring.send(new OffspringCreatedEvent(litter.parent1, litter.parent2, offspring));
+        metrics.recordBirth();
+        tracer.end(PairLifecycleTracer.Phase.TARGET_REACHED_TO_BREED,
+                PairLifecycleTracer.pairKey(litter.parents.getParent1Id(), litter.parents.getParent2Id()), time.getGameTimeInMs());
+    }
 
-        event.animal1.saveComponent(genomeComponent1);
-        event.animal2.saveComponent(genomeComponent2);
+    /**
+     * Returns the prefab used for the offspring of a species, which is the prefab of the parents unless the breeding
+     * profile names another one.
+     */
+    private Prefab getOffspringPrefab(int species, Prefab parentPrefab) {
+        Prefab offspringPrefab = profiles.getOffspringPrefab(species);
+        return offspringPrefab != null ? offspringPrefab : parentPrefab;
+    }
 
-        for (int i = 0; i <= this.getSiblings(); i++) {
-            if (event.animal1.getParentPrefab().getName().equals("WildAnimals:deer")) {
-                entityRef.send(new OnBreed(event.animal1, event.animal2, entityManager.create("WildAnimals:babyDeer")));
+    /**
+     * Reads everything the genetics of the litter depend on from both parents, once.
+     */
+    private ParentTraitSnapshot captureParents(int species, EntityRef animal1, EntityRef animal2) {
+        TraitSchema schema = profiles.getSchema(species);
+        return new ParentTraitSnapshot(schema,
+                animal1.getId(), getOrCreateGenes(animal1, species),
+                animal2.getId(), getOrCreateGenes(animal2, species));
+    }
+
+    /**
+     * Returns the genes of an animal, giving it founder genes if it has none yet, and makes sure that its
+     * {@link GenomeComponent} holds the same genes under the genome ID of its species.
+     */
+    private long getOrCreateGenes(EntityRef animal, int species) {
+        TraitSchema schema = profiles.getSchema(species);
+        String genomeId = speciesGenomes.getGenomeId(species);
+        AnimalGenomeComponent animalGenomeComponent = animal.getComponent(AnimalGenomeComponent.class);
+        GenomeComponent genomeComponent = animal.getComponent(GenomeComponent.class);
+        long genes;
+        if (animalGenomeComponent != null) {
+            genes = animalGenomeComponent.genes;
+        } else {
+            if (genomeComponent != null && genomeId.equals(genomeComponent.genomeId)
+                    && schema.isGeneString(genomeComponent.genes)) {
+                genes = schema.parseGeneString(genomeComponent.genes);
             } else {
-                entityRef.send(new OnBreed(event.animal1, event.animal2, entityManager.create(event.animal1.getParentPrefab())));
+                genes = createFounderGenes(animal, schema);
             }
+            animalGenomeComponent = new AnimalGenomeComponent();
+            animalGenomeComponent.genes = genes;
+            animal.addComponent(animalGenomeComponent);
+        }
+        String geneString = schema.toGeneString(genes);
+        if (genomeComponent == null) {
+            animal.addComponent(createGenomeComponent(genomeId, geneString));
+        } else if (!genomeId.equals(genomeComponent.genomeId) || !geneString.equals(genomeComponent.genes)) {
+            genomeComponent.genomeId = genomeId;
+            genomeComponent.genes = geneString;
+            animal.saveComponent(genomeComponent);
+        }
+        return genes;
+    }
+
+    /**
+     * Draws genes for an animal which has not been bred (e.g. spawned in the wild), matching its current speed.
+     */
+    private long createFounderGenes(EntityRef animal, TraitSchema schema) {
+        long genes = random.nextLong() & schema.getGenomeMask();
+        CharacterMovementComponent movementComponent = animal.getComponent(CharacterMovementComponent.class);
+        if (movementComponent != null) {
+            genes = schema.encode(genes, Trait.SPEED, movementComponent.speedMultiplier);
         }
+        return genes;
+    }
 
+    private static GenomeComponent createGenomeComponent(String genomeId, String geneString) {
+        GenomeComponent genomeComponent = new GenomeComponent();
+        genomeComponent.genomeId = genomeId;
+        genomeComponent.genes = geneString;
+        return genomeComponent;
     }
 
     /**
-     * Registers properties with a unique ID to the genomeRegistry.
-     *
-     * @param animal1
-     * @param animal2
-     * @param genomeID
-     */
-    private void addPropertyMap(EntityRef animal1, EntityRef animal2, String genomeID) {
-        SeedBasedGenomeMap genomeMap = new SeedBasedGenomeMap(worldProvider.getSeed().hashCode());
-        genomeMap.addSeedBasedProperty("speedMultiplier", 0, 0, 1, Float.class, breedingAlgorithm,
-                new Function<String, Float>() {
-                    @Nullable
-                    @Override
-                    public Float apply(@Nullable String input) {
-                        Float speedMultiplier1 = animal1.getComponent(CharacterMovementComponent.class).speedMultiplier;
-                        Float speedMultiplier2 = animal2.getComponent(CharacterMovementComponent.class).speedMultiplier;
-                        if (input.charAt(0) == 'A') {
-                            return speedMultiplier1 >= speedMultiplier2 ? speedMultiplier2 : speedMultiplier1;
-                        } else {
-                            return speedMultiplier1 >= speedMultiplier2 ? speedMultiplier1 : speedMultiplier2;
-                        }
-                    }
-                });
-        GenomeDefinition genomeDefinition = new GenomeDefinition(breedingAlgorithm, genomeMap);
-        genomeRegistry.registerType(genomeID, genomeDefinition);
-
-    }
-
-    /**
-     * This method processes the number of siblings according to the following probability scale:
+     * Creates an animal with its genome, the expressed traits which have an effect on engine components and its
+     * position applied before it is activated.
+     */
+    private EntityRef buildAnimal(Prefab prefab, TraitSchema schema, long genes, float speedMultiplier,
+                                  Vector3fc position) {
+        EntityBuilder builder = entityManager.newBuilder(prefab);
+        AnimalGenomeComponent genomeComponent = new AnimalGenomeComponent();
+        genomeComponent.genes = genes;
+        builder.addComponent(genomeComponent);
+        builder.addComponent(createGenomeComponent(speciesGenomes.getGenomeId(profiles.getSpecies(prefab)), schema.toGeneString(genes)));
+        CharacterMovementComponent movementComponent = builder.getComponent(CharacterMovementComponent.class);
+        if (movementComponent != null && schema.has(Trait.SPEED)) {
+            movementComponent.speedMultiplier = speedMultiplier;
+        }
+        LocationComponent locationComponent = builder.getComponent(LocationComponent.class);
+        if (locationComponent != null) {
+            locationComponent.setWorldPosition(position);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Draws the number of siblings in a litter from the litter size distribution of the species. By default:
      * Chances of having non-identical twins: 4.5%
      * Chances of having non-identical triplets: 0.5%
      */
-    private int getSiblings() {
-        RandomCollection<Integer> rc = new RandomCollection<>();
-        rc.add(SIBLINGS_NORMAL_PROBABILITY, 1);
-        rc.add(SIBLINGS_TWINS_PROBABILITY, 2);
-        rc.add(SIBLINGS_TRIPLETS_PROBABILITY, 3);
-        return rc.next();
+    private int getSiblings(int species) {
+        return profiles.getLitterSizes(species).next(random);
+    }
+
+    /**
+     * A litter waiting to be spawned.
+     * <p>
+     * The genomes and expressed traits are written by a worker before the litter is added to
+     * {@link #completedLitters}, which makes them visible to the main thread.
+     */
+    private static final class Litter {
+        private final EntityRef parent1;
+        private final EntityRef parent2;
+        private final ParentTraitSnapshot parents;
+        private final Prefab offspringPrefab;
+        private final Vector3f spawnPosition;
+        private final int size;
+        private final long[] genes;
+        private final float[] speedMultipliers;
+        private boolean failed;
+        private int spawned;
+
+        private Litter(EntityRef parent1, EntityRef parent2, ParentTraitSnapshot parents, Prefab offspringPrefab,
+                       Vector3f spawnPosition, int size) {
+            this.parent1 = parent1;
+            this.parent2 = parent2;
+            this.parents = parents;
+            this.offspringPrefab = offspringPrefab;
+            this.spawnPosition = spawnPosition;
+            this.size = size;
+            this.genes = new long[size];
+            this.speedMultipliers = new float[size];
+        }
     }
 }
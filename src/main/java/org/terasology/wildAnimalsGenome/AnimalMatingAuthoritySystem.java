@@ -4,10 +4,15 @@ package org.terasology.wildAnimalsGenome;
 
 import com.google.common.collect.Lists;
 import org.joml.Vector3f;
+import org.joml.Vector3ic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
 import org.terasology.engine.entitySystem.event.EventPriority;
 import org.terasology.engine.entitySystem.event.Priority;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
@@ -17,20 +22,24 @@ import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.engine.logic.behavior.BehaviorComponent;
 import org.terasology.engine.logic.behavior.asset.BehaviorTree;
 import org.terasology.engine.logic.characters.AliveCharacterComponent;
-import org.terasology.engine.logic.characters.CharacterTeleportEvent;
 import org.terasology.engine.logic.common.ActivateEvent;
-import org.terasology.engine.logic.delay.DelayManager;
-import org.terasology.engine.logic.delay.DelayedActionTriggeredEvent;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
 import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.logic.permission.PermissionManager;
 import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
 import org.terasology.engine.rendering.nui.NUIManager;
-import org.terasology.genome.events.OnBreed;
+import org.terasology.engine.world.WorldProvider;
 import org.terasology.gestalt.assets.management.AssetManager;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.module.behaviors.components.MinionMoveComponent;
 import org.terasology.wildAnimals.component.WildAnimalComponent;
+import org.terasology.wildAnimalsGenome.component.AnimalGenomeComponent;
 import org.terasology.wildAnimalsGenome.component.MatingBehaviorComponent;
 import org.terasology.wildAnimalsGenome.component.MatingComponent;
+import org.terasology.wildAnimalsGenome.component.MatingPhase;
+import org.terasology.wildAnimalsGenome.component.MatingStateComponent;
 import org.terasology.wildAnimalsGenome.event.ActivateMatingScreenEvent;
 import org.terasology.wildAnimalsGenome.event.MatingActivatedEvent;
 import org.terasology.wildAnimalsGenome.event.MatingCleanupEvent;
@@ -38,111 +47,368 @@ import org.terasology.wildAnimalsGenome.event.MatingInitiatedEvent;
 import org.terasology.wildAnimalsGenome.event.MatingProposalEvent;
 import org.terasology.wildAnimalsGenome.event.MatingProposalResponseEvent;
 import org.terasology.wildAnimalsGenome.event.MatingTargetReachedEvent;
+import org.terasology.wildAnimalsGenome.genetics.Trait;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+import org.terasology.wildAnimalsGenome.metrics.BreedingMetrics;
+import org.terasology.wildAnimalsGenome.metrics.PairLifecycleTracer;
+import org.terasology.wildAnimalsGenome.metrics.PairLifecycleTracer.Phase;
+import org.terasology.wildAnimalsGenome.pairing.CandidateHeap;
+import org.terasology.wildAnimalsGenome.pairing.MateSearchSnapshot;
+import org.terasology.wildAnimalsGenome.pairing.PairWatchdog;
+import org.terasology.wildAnimalsGenome.util.SpatialHashGrid;
+import org.terasology.wildAnimalsGenome.util.TimingWheel;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This system handles the mating search, requests/responses and updating the behavior,
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
+@Share(AnimalMatingAuthoritySystem.class)
 public class AnimalMatingAuthoritySystem extends BaseComponentSystem implements UpdateSubscriberSystem {
 
-    private static final String MATING_SEARCH_ID = "WildAnimalsGenome:MatingSearch";
     private static final Logger logger = LoggerFactory.getLogger(AnimalMatingAuthoritySystem.class);
 
-    @In
-    private DelayManager delayManager;
+    /**
+     * Caps the search backoff, so that an animal still notices mates which wandered into its neighbourhood.
+     */
+    public static final int MAX_BACKOFF_EXPONENT = 4;
+
+    /**
+     * Number of best scoring candidates among which a mate is chosen.
+     */
+    public static final int MATE_CHOICE_CANDIDATES = 4;
+
+    /**
+     * Resolution of the scheduled mate searches, in milliseconds.
+     */
+    public static final long SEARCH_TICK = 50L;
+
+    /**
+     * Resolution of the pair deadlines, in milliseconds.
+     */
+    public static final long WATCHDOG_TICK = 250L;
+
+    /**
+     * Defaults of the settings below, which the headless population simulator uses as well.
+     */
+    public static final long DEFAULT_SEARCH_BUDGET_NANOS = 1_000_000L;
+    public static final double DEFAULT_MAX_KINSHIP = 0.125;
+    public static final long DEFAULT_PROPOSAL_TIMEOUT = 5000L;
+    public static final long DEFAULT_PAIRED_TIMEOUT = 30000L;
+    public static final long DEFAULT_TARGET_REACHED_TIMEOUT = 15000L;
+    public static final long DEFAULT_BREEDING_TIMEOUT = 5000L;
+    public static final float DEFAULT_PROXIMITY_WEIGHT = 1f;
+    public static final float DEFAULT_FITNESS_WEIGHT = 1f;
+    public static final float DEFAULT_KINSHIP_WEIGHT = 4f;
+
     @In
     private EntityManager entityManager;
     @In
     private NUIManager nuiManager;
     @In
     private AssetManager assetManager;
+    @In
+    private AnimalSpatialIndex spatialIndex;
+    @In
+    private BreedingMetricsSystem metricsSystem;
+    @In
+    private Time time;
+    @In
+    private PedigreeSystem pedigreeSystem;
+    @In
+    private BreedingProfileSystem profiles;
+    @In
+    private WorldProvider worldProvider;
 
     /**
-     * Delay between consecutive searches for a mate.
+     * Delay between consecutive parallel pairing waves. The serial search uses the interval of the breeding profile of
+     * every animal instead.
      */
     private long matingSearchInterval = 1000L;
 
     /**
-     * Radius within which to look for a mate.
+     * Time elapsed since the last parallel pairing wave, in milliseconds.
+     */
+    private float timeSinceLastWave;
+
+    /**
+     * Maximum time spent searching for mates on the main thread per tick, in nanoseconds.
+     */
+    private long searchBudgetNanos = DEFAULT_SEARCH_BUDGET_NANOS;
+
+    /**
+     * Coefficient of kinship above which two animals are not paired. The default allows half siblings but not full
+     * siblings or parents with their offspring.
+     */
+    private double maxKinship = DEFAULT_MAX_KINSHIP;
+
+    /**
+     * Maximum time a pair may spend in each {@link MatingPhase} before it is aborted, in milliseconds.
+     */
+    private long proposalTimeout = DEFAULT_PROPOSAL_TIMEOUT;
+    private long pairedTimeout = DEFAULT_PAIRED_TIMEOUT;
+    private long targetReachedTimeout = DEFAULT_TARGET_REACHED_TIMEOUT;
+    private long breedingTimeout = DEFAULT_BREEDING_TIMEOUT;
+
+    /**
+     * Weights of the proximity of a candidate, the fitness of its traits and its kinship in its score as a mate.
      */
-    private float searchRadius = 10f;
+    private float proximityWeight = DEFAULT_PROXIMITY_WEIGHT;
+    private float fitnessWeight = DEFAULT_FITNESS_WEIGHT;
+    private float kinshipWeight = DEFAULT_KINSHIP_WEIGHT;
+
+    private SplittableRandom random;
+
+    private BehaviorTree mateBT;
+
+    /**
+     * Whether pairing waves run on {@link #searchPool} from a {@link MateSearchSnapshot} instead of on the main thread.
+     */
+    private boolean parallelSearch;
+    private ForkJoinPool searchPool;
+    private MateSearchSnapshot pendingSnapshot;
+    private CompletableFuture<int[]> pendingSearch;
+
+    private BreedingMetrics metrics;
+    private PairLifecycleTracer tracer;
+
+    /**
+     * Deadlines of the pairs in the mating process, so that pairs which never complete a phase (e.g. because a partner
+     * died or was unloaded, or its target cannot be reached) are cleaned up. Also finds the mating states restored from
+     * storage, whose deadlines were lost.
+     */
+    private PairWatchdog<PairWatch> watchdog;
+    private final List<PairWatch> expiredPairs = new ArrayList<>();
+    private final List<EntityRef> unwatchedAnimals = new ArrayList<>();
+
+    /**
+     * Number of animals which currently have a {@link MatingBehaviorComponent}.
+     */
+    private int animalsInMatingBehavior;
+
+    /**
+     * Animals which are ready to mate.
+     */
+    private final Set<EntityRef> readyAnimals = new LinkedHashSet<>();
+
+    /**
+     * The next search of every ready animal, so that an update only visits the animals whose search is due.
+     */
+    private TimingWheel<EntityRef> searchWheel;
+    private final List<EntityRef> expiredSearches = new ArrayList<>();
 
     /**
-     * Squared distance below which the animal is said to have "reached" its target mating block.
+     * Ready animals whose search is due, in the order they became due. Animals left over when the
+     * {@link #searchBudgetNanos search budget} is used up are searched first in the next update.
      */
-    private float maxDistanceSquared = 1.8f;
+    private final ArrayDeque<EntityRef> dueSearches = new ArrayDeque<>();
+
+    /**
+     * Animals in the mating process which have not reached their target block yet.
+     */
+    private final Set<EntityRef> inFlightAnimals = new HashSet<>();
+
+    /**
+     * In-flight animals whose location changed since the last update.
+     */
+    private final Set<EntityRef> movedAnimals = new LinkedHashSet<>();
+
+    /**
+     * Animals whose {@link MatingComponent} or {@link MatingStateComponent} was modified during this tick. They are
+     * saved once at the end of the update instead of after every change.
+     */
+    private final Set<EntityRef> dirtyMatingComponents = new LinkedHashSet<>();
+    private final Set<EntityRef> dirtyMatingStates = new LinkedHashSet<>();
+
+    private final List<EntityRef> pendingTargetChecks = new ArrayList<>();
+    private final Map<EntityRef, SearchSchedule> searchSchedules = new HashMap<>();
+    private final CandidateHeap<EntityRef> candidates = new CandidateHeap<>(MATE_CHOICE_CANDIDATES);
+    private final CandidateScorer candidateScorer = new CandidateScorer();
+    private final Vector3f actorPosition = new Vector3f();
 
     @Override
     public void update(float delta) {
-        BehaviorTree mateBT = assetManager.getAsset("WildAnimalsGenome:matingCritter", BehaviorTree.class).get();
-        for (EntityRef entityRef : entityManager.getEntitiesWith(MatingBehaviorComponent.class)) {
-            MatingComponent matingComponent = entityRef.getComponent(MatingComponent.class);
-            if (entityRef.hasComponent(BehaviorComponent.class) && entityRef.getComponent(BehaviorComponent.class).tree != mateBT) {
-                if (matingComponent.matingEntity != EntityRef.NULL && matingComponent.matingEntity.hasComponent(MatingBehaviorComponent.class)) {
-                    matingComponent.matingEntity.removeComponent(MatingBehaviorComponent.class);
-                    entityRef.send(new MatingCleanupEvent(entityRef, matingComponent.matingEntity));
-                }
+        long startTime = metrics.startTimer();
+        resetUnwatchedMatings();
+        if (pendingSearch != null && pendingSearch.isDone()) {
+            applyParallelPairing();
+        }
+        if (parallelSearch) {
+            timeSinceLastWave += delta * 1000f;
+            if (timeSinceLastWave >= matingSearchInterval && pendingSearch == null) {
+                timeSinceLastWave = 0;
+                startParallelPairing();
             }
+        } else {
+            runScheduledSearches();
+        }
+
+        // Reaching a target can complete a mating and untrack animals, so the queue is drained into a separate list first.
+        pendingTargetChecks.addAll(movedAnimals);
+        movedAnimals.clear();
+        for (int i = 0; i < pendingTargetChecks.size(); i++) {
+            checkTargetReached(pendingTargetChecks.get(i));
+        }
+        pendingTargetChecks.clear();
+        expireStalePairs();
+        flushMatingWrites();
+
+        metrics.setPairsInFlight(animalsInMatingBehavior / 2);
+        metrics.recordUpdate(startTime);
+    }
+
+    @Override
+    public void initialise() {
+        metrics = metricsSystem.getMetrics();
+        tracer = metricsSystem.getTracer();
+        // Stored entities can be activated before postBegin, and their mating states are checked against the watchdog.
+        watchdog = new PairWatchdog<>(256, WATCHDOG_TICK, time.getGameTimeInMs());
+    }
+
+    @Override
+    public void postBegin() {
+        random = new SplittableRandom(worldProvider.getSeed().hashCode() * 31L + 11);
+        mateBT = assetManager.getAsset("WildAnimalsGenome:matingCritter", BehaviorTree.class).get();
+        searchWheel = new TimingWheel<>(512, SEARCH_TICK, time.getGameTimeInMs());
+    }
+
+    @Override
+    public void shutdown() {
+        if (searchPool != null) {
+            searchPool.shutdownNow();
+            searchPool = null;
+        }
+        pendingSearch = null;
+        pendingSnapshot = null;
+    }
+
+    @Command(shortDescription = "Sets the number of animals per region at which breeding stops", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String matingRegionCap(@CommandParam("cap") int cap) {
+        profiles.setRegionPopulationCap(cap);
+        return "Breeding stops at " + profiles.getRegionPopulationCap() + " animals per " + AnimalSpatialIndex.REGION_SIZE + "x"
+                + AnimalSpatialIndex.REGION_SIZE + " region";
+    }
+
+    @Command(shortDescription = "Sets the time the mate search may take per tick, in microseconds", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String matingSearchBudget(@CommandParam("micros") int micros) {
+        searchBudgetNanos = Math.max(micros, 1) * 1000L;
+        return "Mate search budget set to " + searchBudgetNanos / 1000L + " us per tick";
+    }
+
+    @Command(shortDescription = "Runs the mate search on worker threads", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String matingParallelSearch(@CommandParam("enabled") boolean enabled) {
+        parallelSearch = enabled;
+        if (enabled && searchPool == null) {
+            searchPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        return "Parallel mate search " + (enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Saves the mating state of an animal with the other mating writes of this tick, instead of right away. Behavior
+     * nodes which modify the {@link MatingStateComponent} call this rather than saving it themselves.
+     */
+    public void markMatingStateDirty(EntityRef animal) {
+        dirtyMatingStates.add(animal);
+    }
+
+    /**
+     * Starts tracking an animal once it switches to the mating behavior.
+     */
+    @ReceiveEvent(components = MatingBehaviorComponent.class)
+    public void onMatingBehaviorActivated(OnActivatedComponent event, EntityRef entityRef) {
+        animalsInMatingBehavior++;
+        inFlightAnimals.add(entityRef);
+    }
 
-            if (matingComponent.inMatingProcess) {
-                MinionMoveComponent minionMoveComponent = entityRef.getComponent(MinionMoveComponent.class);
-                if (minionMoveComponent.target != null) {
-                    Vector3f target = new Vector3f(minionMoveComponent.target.x(), minionMoveComponent.target.y(), minionMoveComponent.target.z());
-                    if (entityRef.getComponent(LocationComponent.class).getWorldPosition(new Vector3f())
-                            .distanceSquared(target) <= maxDistanceSquared) {
-                        matingComponent.reachedTarget = true;
-                        entityRef.saveComponent(matingComponent);
-                        entityRef.send(new MatingTargetReachedEvent(entityRef));
-                    }
-                }
+    @ReceiveEvent(components = MatingBehaviorComponent.class)
+    public void onMatingBehaviorDeactivated(BeforeDeactivateComponent event, EntityRef entityRef) {
+        animalsInMatingBehavior--;
+        inFlightAnimals.remove(entityRef);
+        movedAnimals.remove(entityRef);
+    }
+
+    /**
+     * Queues animals in the mating process for a target check when they move or get a new target, and aborts the mating
+     * if their behavior is changed away from the mating behavior.
+     */
+    @ReceiveEvent(components = {MatingBehaviorComponent.class, LocationComponent.class, MinionMoveComponent.class})
+    public void onMatingAnimalChanged(OnChangedComponent event, EntityRef entityRef, MatingStateComponent matingState) {
+        BehaviorComponent behaviorComponent = entityRef.getComponent(BehaviorComponent.class);
+        if (behaviorComponent != null && behaviorComponent.tree != mateBT) {
+            if (matingState.matingEntity != EntityRef.NULL && matingState.matingEntity.hasComponent(MatingBehaviorComponent.class)) {
+                matingState.matingEntity.removeComponent(MatingBehaviorComponent.class);
+                entityRef.send(new MatingCleanupEvent(entityRef, matingState.matingEntity));
             }
+            return;
+        }
+        if (inFlightAnimals.contains(entityRef)) {
+            movedAnimals.add(entityRef);
         }
     }
 
     /**
-     * Finds nearby potential mates and sends a {@link MatingProposalEvent}.
+     * Keeps track of the animals that were already activated for mating when they are loaded.
      */
     @ReceiveEvent
-    public void onMatingSearch(DelayedActionTriggeredEvent event, EntityRef clientEntity) {
-        if (event.getActionId().startsWith(MATING_SEARCH_ID)) {
-            EntityRef animalEntity = entityManager.getEntity(getEntityIDFromString(event.getActionId()));
-            MatingComponent matingComponent = animalEntity.getComponent(MatingComponent.class);
-            if (matingComponent.readyToMate && !matingComponent.inMatingProcess) {
-                List<EntityRef> nearbyAnimals = findNearbyAnimals(
-                    animalEntity.getComponent(LocationComponent.class), searchRadius, animalEntity.getComponent(WildAnimalComponent.class).name);
-                List<EntityRef> animals = filterMatingActivatedAnimals(nearbyAnimals);
-                for (EntityRef animal : animals) {
-                    if (!animal.equals(animalEntity)) {
-                        matingComponent.inMatingProcess = true;
-                        animalEntity.saveComponent(matingComponent);
-                        animalEntity.addOrSaveComponent(new MatingBehaviorComponent());
-                        clientEntity.send(new MatingProposalEvent(animalEntity, animal));
-                    }
-                }
-                delayManager.addDelayedAction(clientEntity, MATING_SEARCH_ID + ":" + animalEntity.getId(), matingSearchInterval);
-            }
+    public void onMatingComponentActivated(OnActivatedComponent event, EntityRef entityRef, MatingComponent matingComponent) {
+        if (matingComponent.readyToMate) {
+            addReadyAnimal(entityRef);
         }
     }
 
     /**
-     * Schedules a {@link DelayedActionTriggeredEvent} to search for potential mates when a {@link MatingActivatedEvent}
-     * is received.
+     * Checks in the next update whether the pair of an animal whose mating state was activated is watched. A state
+     * restored from storage has lost its deadline, and its animal would never be available for mating again.
+     */
+    @ReceiveEvent
+    public void onMatingStateActivated(OnActivatedComponent event, EntityRef entityRef, MatingStateComponent matingState) {
+        watchdog.checkRestored(PairLifecycleTracer.pairKey(entityRef.getId(), matingState.matingEntity.getId()), entityRef);
+    }
+
+    @ReceiveEvent(components = MatingComponent.class)
+    public void onMatingComponentDeactivated(BeforeDeactivateComponent event, EntityRef entityRef) {
+        removeReadyAnimal(entityRef);
+    }
+
+    /**
+     * Registers the animal for the periodic pairing wave when a {@link MatingActivatedEvent} is received.
      */
     @ReceiveEvent
     public void onMatingActivated(MatingActivatedEvent event, EntityRef clientEntity) {
         MatingComponent matingComponent = event.entityRef.getComponent(MatingComponent.class);
         if (matingComponent == null) {
             matingComponent = new MatingComponent();
+            matingComponent.readyToMate = event.isActivated;
+            event.entityRef.addComponent(matingComponent);
+        } else if (matingComponent.readyToMate != event.isActivated) {
+            matingComponent.readyToMate = event.isActivated;
+            dirtyMatingComponents.add(event.entityRef);
         }
         if (event.isActivated) {
-            matingComponent.readyToMate = true;
-            delayManager.addDelayedAction(clientEntity, MATING_SEARCH_ID + ":" + event.entityRef.getId(), matingSearchInterval);
+            addReadyAnimal(event.entityRef);
+            resetNearbyBackoff(event.entityRef);
+            tracer.start(Phase.ACTIVATION_TO_PROPOSAL, event.entityRef.getId(), time.getGameTimeInMs());
         } else {
-            matingComponent.readyToMate = false;
+            removeReadyAnimal(event.entityRef);
+            tracer.cancel(Phase.ACTIVATION_TO_PROPOSAL, event.entityRef.getId());
         }
-        event.entityRef.saveComponent(matingComponent);
     }
 
     /**
@@ -151,11 +417,11 @@ public class AnimalMatingAuthoritySystem extends BaseComponentSystem implements
      */
     @ReceiveEvent
     public void onMatingProposalReceived(MatingProposalEvent event, EntityRef entityRef) {
-        MatingComponent matingComponent = event.target.getComponent(MatingComponent.class);
-        if (matingComponent.readyToMate && !matingComponent.inMatingProcess) {
-            matingComponent.inMatingProcess = true;
-            matingComponent.matingEntity = event.instigator;
-            event.target.saveComponent(matingComponent);
+        if (isAvailableForMating(event.target)) {
+            MatingStateComponent matingState = new MatingStateComponent();
+            matingState.phase = MatingPhase.PAIRED;
+            matingState.matingEntity = event.instigator;
+            event.target.addComponent(matingState);
             event.target.addComponent(new MatingBehaviorComponent());
 
             MinionMoveComponent actorMinionMoveComponent = event.target.getComponent(MinionMoveComponent.class);
@@ -173,13 +439,24 @@ public class AnimalMatingAuthoritySystem extends BaseComponentSystem implements
     @ReceiveEvent
     public void onMatingResponseReceived(MatingProposalResponseEvent event, EntityRef entityRef) {
         MatingComponent matingComponent = event.target.getComponent(MatingComponent.class);
-        if (event.accepted && matingComponent.readyToMate) {
-            matingComponent.matingEntity = event.instigator;
-            logger.info("Mating between " + event.target.getId() + " and " + event.instigator.getId());
+        MatingStateComponent matingState = event.target.getComponent(MatingStateComponent.class);
+        metrics.recordProposalResponse(event.accepted);
+        long pairKey = PairLifecycleTracer.pairKey(event.target.getId(), event.instigator.getId());
+        if (event.accepted && matingComponent.readyToMate && matingState != null
+                && advance(event.target, matingState, MatingPhase.PAIRED)) {
+            long now = time.getGameTimeInMs();
+            tracer.end(Phase.PROPOSAL_TO_ACCEPTANCE, pairKey, now);
+            tracer.start(Phase.ACCEPTANCE_TO_TARGET_REACHED, pairKey, now);
+            matingState.matingEntity = event.instigator;
+            watchPair(event.target, event.instigator, MatingPhase.PAIRED);
+            logger.debug("Mating between {} and {}", event.target.getId(), event.instigator.getId());
         } else {
-            matingComponent.inMatingProcess = false;
+            tracer.cancel(Phase.PROPOSAL_TO_ACCEPTANCE, pairKey);
+            unwatchPair(pairKey);
+            event.target.removeComponent(MatingStateComponent.class);
+            event.target.removeComponent(MatingBehaviorComponent.class);
+            returnToPool(event.target);
         }
-        event.target.saveComponent(matingComponent);
     }
 
     /**
@@ -187,46 +464,43 @@ public class AnimalMatingAuthoritySystem extends BaseComponentSystem implements
      */
     @ReceiveEvent
     public void onMatingTargetReached(MatingTargetReachedEvent event, EntityRef entityRef) {
-        MatingComponent matingComponent = event.animalEntity.getComponent(MatingComponent.class);
-        EntityRef matingEntity = matingComponent.matingEntity;
-        if (matingEntity.getComponent(MatingComponent.class).reachedTarget) {
+        MatingStateComponent matingState = event.animalEntity.getComponent(MatingStateComponent.class);
+        if (matingState == null || matingState.phase != MatingPhase.TARGET_REACHED) {
+            return;
+        }
+        EntityRef matingEntity = matingState.matingEntity;
+        MatingStateComponent mateState = matingEntity.getComponent(MatingStateComponent.class);
+        if (mateState != null && mateState.phase == MatingPhase.TARGET_REACHED) {
+            advance(event.animalEntity, matingState, MatingPhase.BREEDING);
+            advance(matingEntity, mateState, MatingPhase.BREEDING);
+            watchPair(event.animalEntity, matingEntity, MatingPhase.BREEDING);
             MatingInitiatedEvent matingInitiatedEvent = new MatingInitiatedEvent();
             matingInitiatedEvent.animal1 = event.animalEntity;
             matingInitiatedEvent.animal2 = matingEntity;
+            long pairKey = PairLifecycleTracer.pairKey(event.animalEntity.getId(), matingEntity.getId());
+            long now = time.getGameTimeInMs();
+            tracer.end(Phase.ACCEPTANCE_TO_TARGET_REACHED, pairKey, now);
+            tracer.start(Phase.TARGET_REACHED_TO_BREED, pairKey, now);
             event.animalEntity.send(matingInitiatedEvent);
         }
     }
 
-    @ReceiveEvent
-    public void onOffspringCreated(OnBreed event, EntityRef entityRef) {
-        LocationComponent locationComponent = entityRef.getComponent(LocationComponent.class);
-        Vector3f spawnPos = locationComponent.getWorldPosition(new Vector3f());
-        Vector3f offset = locationComponent.getWorldDirection(new Vector3f());
-        offset.mul(2);
-        spawnPos.add(offset);
-        event.getOffspring().send(new CharacterTeleportEvent(spawnPos));
-        entityRef.send(new MatingCleanupEvent(event.getOrganism1(), event.getOrganism2()));
-    }
-
     /**
-     * After mating is complete, resets the variables that were changed in the {@link MatingComponent} during mating.
+     * After mating, removes the mating state of both animals.
+     * <p>
+     * Animals which bred are no longer ready to mate. If the mating was aborted before breeding, e.g. because the pair
+     * expired, the animals stay ready and return to the pool of animals searching for a mate.
      */
     @ReceiveEvent
     public void cleanupAfterMating(MatingCleanupEvent event, EntityRef entityRef) {
-        EntityRef animal1 = event.animal1;
-        EntityRef animal2 = event.animal2;
-        animal1.removeComponent(MatingBehaviorComponent.class);
-        animal2.removeComponent(MatingBehaviorComponent.class);
-
-        MatingComponent matingComponent1 = animal1.getComponent(MatingComponent.class);
-        MatingComponent matingComponent1New = new MatingComponent();
-        matingComponent1New.matingDisabled = matingComponent1.matingDisabled;
-        animal1.saveComponent(matingComponent1New);
-
-        MatingComponent matingComponent2 = animal2.getComponent(MatingComponent.class);
-        MatingComponent matingComponent2New = new MatingComponent();
-        matingComponent2New.matingDisabled = matingComponent2.matingDisabled;
-        animal2.saveComponent(matingComponent2New);
+        unwatchPair(PairLifecycleTracer.pairKey(event.animal1.getId(), event.animal2.getId()));
+        boolean bred = isBreeding(event.animal1) || isBreeding(event.animal2);
+        resetMating(event.animal1, bred);
+        resetMating(event.animal2, bred);
+        if (!bred) {
+            returnToPool(event.animal1);
+            returnToPool(event.animal2);
+        }
     }
 
     /**
@@ -239,53 +513,485 @@ public class AnimalMatingAuthoritySystem extends BaseComponentSystem implements
         event.consume();
     }
 
+    /**
+     * Sends a {@link MatingTargetReachedEvent} if the animal is close enough to its target block.
+     * The animal stops being tracked afterwards, so the event is sent exactly once per mating.
+     */
+    private void checkTargetReached(EntityRef entityRef) {
+        MatingStateComponent matingState = entityRef.getComponent(MatingStateComponent.class);
+        if (matingState == null || matingState.phase != MatingPhase.PAIRED) {
+            return;
+        }
+        MinionMoveComponent minionMoveComponent = entityRef.getComponent(MinionMoveComponent.class);
+        if (minionMoveComponent == null || minionMoveComponent.target == null) {
+            return;
+        }
+        Vector3ic target = minionMoveComponent.target;
+        if (entityRef.getComponent(LocationComponent.class).getWorldPosition(actorPosition)
+                .distanceSquared(target.x(), target.y(), target.z())
+                <= profiles.getTargetReachedDistanceSquared(profiles.getSpecies(entityRef))) {
+            inFlightAnimals.remove(entityRef);
+            if (advance(entityRef, matingState, MatingPhase.TARGET_REACHED)) {
+                watchPair(entityRef, matingState.matingEntity, MatingPhase.TARGET_REACHED);
+            }
+            entityRef.send(new MatingTargetReachedEvent(entityRef));
+        }
+    }
+
+    /**
+     * Lets the ready animals whose search is due look for a mate and propose to it.
+     * <p>
+     * Due animals are searched in the order they became due until none is left or the
+     * {@link #searchBudgetNanos search budget} is used up. An animal which finds no mate doubles its search interval.
+     */
+    private void runScheduledSearches() {
+        long now = time.getGameTimeInMs();
+        searchWheel.expire(now, expiredSearches);
+        for (int i = 0; i < expiredSearches.size(); i++) {
+            EntityRef animalEntity = expiredSearches.get(i);
+            SearchSchedule schedule = searchSchedules.get(animalEntity);
+            if (schedule != null) {
+                schedule.timeout = null;
+                queueSearch(animalEntity, schedule);
+            }
+        }
+        expiredSearches.clear();
+        if (dueSearches.isEmpty()) {
+            return;
+        }
+
+        metrics.recordPairingWave();
+        long deadline = System.nanoTime() + searchBudgetNanos;
+        while (!dueSearches.isEmpty()) {
+            if (System.nanoTime() >= deadline) {
+                metrics.recordSearchBudgetExhausted();
+                return;
+            }
+            EntityRef animalEntity = dueSearches.poll();
+            SearchSchedule schedule = searchSchedules.get(animalEntity);
+            if (schedule == null || !schedule.due) {
+                continue;
+            }
+            schedule.due = false;
+            long interval = profiles.getSearchInterval(profiles.getSpecies(animalEntity));
+            if (!isAvailableForMating(animalEntity)) {
+                // Busy mating; a rejected or aborted mating returns it through returnToPool.
+                scheduleSearch(animalEntity, schedule, now + interval);
+                continue;
+            }
+            EntityRef partner = isBreedingAllowed(animalEntity) ? findMate(animalEntity) : EntityRef.NULL;
+            if (partner == EntityRef.NULL) {
+                schedule.failedSearches = Math.min(schedule.failedSearches + 1, MAX_BACKOFF_EXPONENT);
+                scheduleSearch(animalEntity, schedule, now + (interval << schedule.failedSearches));
+            } else {
+                schedule.failedSearches = 0;
+                scheduleSearch(animalEntity, schedule, now + interval);
+                proposeMating(animalEntity, partner, now);
+            }
+        }
+    }
+
+    private void addReadyAnimal(EntityRef animal) {
+        if (readyAnimals.add(animal)) {
+            SearchSchedule schedule = new SearchSchedule();
+            searchSchedules.put(animal, schedule);
+            queueSearch(animal, schedule);
+        }
+    }
+
+    private void removeReadyAnimal(EntityRef animal) {
+        readyAnimals.remove(animal);
+        SearchSchedule schedule = searchSchedules.remove(animal);
+        if (schedule != null && schedule.timeout != null) {
+            searchWheel.cancel(schedule.timeout);
+        }
+    }
+
+    /**
+     * Sets the time of the next search of an animal, replacing the previous one. An animal whose search is already due
+     * keeps it.
+     */
+    private void scheduleSearch(EntityRef animal, SearchSchedule schedule, long searchTime) {
+        if (schedule.timeout != null) {
+            searchWheel.cancel(schedule.timeout);
+        }
+        schedule.timeout = schedule.due ? null : searchWheel.schedule(animal, searchTime);
+    }
+
+    /**
+     * Makes the search of an animal due now.
+     */
+    private void queueSearch(EntityRef animal, SearchSchedule schedule) {
+        if (schedule.timeout != null) {
+            searchWheel.cancel(schedule.timeout);
+            schedule.timeout = null;
+        }
+        if (!schedule.due) {
+            schedule.due = true;
+            dueSearches.add(animal);
+        }
+    }
+
+    /**
+     * Makes the ready animals around an animal which became available for mating search again on the next update, since
+     * they may now find a mate.
+     */
+    private void resetNearbyBackoff(EntityRef animalEntity) {
+        LocationComponent locationComponent = animalEntity.getComponent(LocationComponent.class);
+        if (locationComponent == null || !animalEntity.hasComponent(WildAnimalComponent.class)) {
+            return;
+        }
+        int species = profiles.getSpecies(animalEntity);
+        for (EntityRef animal : findNearbyAnimals(locationComponent, profiles.getSearchRadius(species), species)) {
+            SearchSchedule schedule = searchSchedules.get(animal);
+            if (schedule != null && !animal.equals(animalEntity)) {
+                schedule.failedSearches = 0;
+                queueSearch(animal, schedule);
+            }
+        }
+    }
+
+    /**
+     * Lets an animal whose mating was rejected or aborted search again after its normal interval, and wakes up the
+     * animals around it, which may pair with it now.
+     */
+    private void returnToPool(EntityRef animal) {
+        SearchSchedule schedule = searchSchedules.get(animal);
+        if (schedule == null || !isAvailableForMating(animal)) {
+            return;
+        }
+        schedule.failedSearches = 0;
+        scheduleSearch(animal, schedule, time.getGameTimeInMs() + profiles.getSearchInterval(profiles.getSpecies(animal)));
+        resetNearbyBackoff(animal);
+    }
+
+    /**
+     * Takes a {@link MateSearchSnapshot} of the available animals and computes the pairs on {@link #searchPool}.
+     * The result is applied by {@link #applyParallelPairing()} in a later update.
+     */
+    private void startParallelPairing() {
+        metrics.recordPairingWave();
+        // The snapshot searches with a single radius, so it uses the largest one of all breeding profiles.
+        float radius = profiles.getMaxSearchRadius();
+        MateSearchSnapshot snapshot = new MateSearchSnapshot(readyAnimals.size(), radius);
+        for (EntityRef animalEntity : readyAnimals) {
+            if (!isAvailableForMating(animalEntity) || !animalEntity.hasComponent(AliveCharacterComponent.class)) {
+                continue;
+            }
+            LocationComponent locationComponent = animalEntity.getComponent(LocationComponent.class);
+            if (locationComponent == null || !animalEntity.hasComponent(WildAnimalComponent.class)) {
+                continue;
+            }
+            int species = profiles.getSpecies(animalEntity);
+            if (!snapshot.add(animalEntity, locationComponent.getWorldPosition(actorPosition), species)) {
+                break;
+            }
+        }
+        pendingSnapshot = snapshot;
+        pendingSearch = CompletableFuture.supplyAsync(() -> snapshot.computePartners(radius), searchPool);
+    }
+
+    /**
+     * Sends the proposals computed by the last parallel search, skipping animals whose state changed in the meantime.
+     */
+    private void applyParallelPairing() {
+        MateSearchSnapshot snapshot = pendingSnapshot;
+        int[] partnerIndices;
+        try {
+            partnerIndices = pendingSearch.join();
+        } catch (CompletionException | CancellationException e) {
+            logger.error("Parallel mate search failed", e);
+            return;
+        } finally {
+            pendingSnapshot = null;
+            pendingSearch = null;
+        }
+
+        long now = time.getGameTimeInMs();
+        for (int i = 0; i < partnerIndices.length; i++) {
+            int partnerIndex = partnerIndices[i];
+            if (partnerIndex <= i) {
+                continue;
+            }
+            EntityRef animalEntity = snapshot.getAnimal(i);
+            EntityRef partner = snapshot.getAnimal(partnerIndex);
+            if (isAvailableForMating(animalEntity) && isAvailableForMating(partner) && isBreedingAllowed(animalEntity)
+                    && pedigreeSystem.getKinship(animalEntity, partner) <= maxKinship) {
+                proposeMating(animalEntity, partner, now);
+            }
+        }
+    }
+
+    /**
+     * Marks the instigator as mating and sends a {@link MatingProposalEvent} to its partner.
+     */
+    private void proposeMating(EntityRef animalEntity, EntityRef partner, long now) {
+        tracer.end(Phase.ACTIVATION_TO_PROPOSAL, animalEntity.getId(), now);
+        tracer.end(Phase.ACTIVATION_TO_PROPOSAL, partner.getId(), now);
+        tracer.start(Phase.PROPOSAL_TO_ACCEPTANCE, PairLifecycleTracer.pairKey(animalEntity.getId(), partner.getId()), now);
+        MatingStateComponent matingState = new MatingStateComponent();
+        matingState.matingEntity = partner;
+        animalEntity.addComponent(matingState);
+        animalEntity.addOrSaveComponent(new MatingBehaviorComponent());
+        watchPair(animalEntity, partner, MatingPhase.PROPOSING);
+        animalEntity.send(new MatingProposalEvent(animalEntity, partner));
+        metrics.recordProposalSent();
+    }
+
+    /**
+     * Chooses a mate among the animals of the same species nearby which can accept a proposal from the given animal.
+     * <p>
+     * Every candidate is scored by {@link CandidateScorer} while the spatial index is queried, keeping only the best
+     * {@link #MATE_CHOICE_CANDIDATES}; the mate is drawn from those with a probability proportional to their score.
+     *
+     * @return The chosen partner, or {@link EntityRef#NULL} if there is none.
+     */
+    private EntityRef findMate(EntityRef animalEntity) {
+        LocationComponent locationComponent = animalEntity.getComponent(LocationComponent.class);
+        if (locationComponent == null || !animalEntity.hasComponent(WildAnimalComponent.class)) {
+            return EntityRef.NULL;
+        }
+        int species = profiles.getSpecies(animalEntity);
+        float radius = profiles.getSearchRadius(species);
+        long startTime = metrics.startTimer();
+        candidateScorer.begin(animalEntity, radius, profiles.getSchema(species));
+        int scanned = spatialIndex.visitNearby(species, locationComponent.getWorldPosition(actorPosition),
+                radius, candidateScorer);
+        metrics.recordSearch(startTime, scanned);
+
+        EntityRef mate = candidates.isEmpty() ? EntityRef.NULL : candidates.pickWeighted(random);
+        candidates.clear();
+        return mate;
+    }
+
+    /**
+     * Decides whether an animal may start mating given the population of its region. No matings start in a region at
+     * the {@link BreedingProfileSystem#getRegionPopulationCap() cap}; below it, the chance of a pairing going ahead drops
+     * quadratically as the population grows.
+     */
+    private boolean isBreedingAllowed(EntityRef animal) {
+        LocationComponent locationComponent = animal.getComponent(LocationComponent.class);
+        if (locationComponent == null) {
+            return false;
+        }
+        int population = spatialIndex.getRegionPopulation(locationComponent.getWorldPosition(actorPosition));
+        int regionPopulationCap = profiles.getRegionPopulationCap();
+        if (population >= regionPopulationCap) {
+            return false;
+        }
+        float load = (float) population / regionPopulationCap;
+        return random.nextDouble() >= load * load;
+    }
+
+    private boolean isAvailableForMating(EntityRef animal) {
+        MatingComponent matingComponent = animal.getComponent(MatingComponent.class);
+        return matingComponent != null && matingComponent.readyToMate && !animal.hasComponent(MatingStateComponent.class);
+    }
+
+    private boolean isBreeding(EntityRef animal) {
+        MatingStateComponent matingState = animal.getComponent(MatingStateComponent.class);
+        return matingState != null && matingState.phase == MatingPhase.BREEDING;
+    }
+
+    /**
+     * Removes the mating state of an animal.
+     *
+     * @param endReadiness Whether the animal stops being ready to mate.
+     */
+    private void resetMating(EntityRef animal, boolean endReadiness) {
+        animal.removeComponent(MatingBehaviorComponent.class);
+        animal.removeComponent(MatingStateComponent.class);
+        if (!endReadiness) {
+            return;
+        }
+        removeReadyAnimal(animal);
+        MatingComponent matingComponent = animal.getComponent(MatingComponent.class);
+        if (matingComponent != null && matingComponent.readyToMate) {
+            matingComponent.readyToMate = false;
+            dirtyMatingComponents.add(animal);
+        }
+    }
+
+    /**
+     * Moves the mating of an animal on to the next phase, rejecting transitions which skip or repeat a phase.
+     *
+     * @return Whether the transition was valid.
+     */
+    private boolean advance(EntityRef animal, MatingStateComponent matingState, MatingPhase next) {
+        if (!matingState.phase.canAdvanceTo(next)) {
+            logger.warn("Invalid mating transition of {} from {} to {}", animal.getId(), matingState.phase, next);
+            return false;
+        }
+        matingState.phase = next;
+        dirtyMatingStates.add(animal);
+        return true;
+    }
+
+    /**
+     * Sets the deadline of a pair for the phase it just entered, replacing the deadline of its previous phase.
+     */
+    private void watchPair(EntityRef animal1, EntityRef animal2, MatingPhase phase) {
+        long pairKey = PairLifecycleTracer.pairKey(animal1.getId(), animal2.getId());
+        PairWatch watch = new PairWatch(animal1, animal2, pairKey, phase);
+        watchdog.watch(pairKey, watch, time.getGameTimeInMs() + getPhaseTimeout(phase));
+    }
+
+    private void unwatchPair(long pairKey) {
+        watchdog.unwatch(pairKey);
+    }
+
+    private long getPhaseTimeout(MatingPhase phase) {
+        switch (phase) {
+            case PROPOSING:
+                return proposalTimeout;
+            case PAIRED:
+                return pairedTimeout;
+            case TARGET_REACHED:
+                return targetReachedTimeout;
+            default:
+                return breedingTimeout;
+        }
+    }
+
+    /**
+     * Aborts the pairs whose deadline passed with the normal {@link MatingCleanupEvent}.
+     */
+    private void expireStalePairs() {
+        watchdog.expire(time.getGameTimeInMs(), expiredPairs);
+        for (int i = 0; i < expiredPairs.size(); i++) {
+            PairWatch watch = expiredPairs.get(i);
+            metrics.recordPairExpired();
+            tracer.cancel(Phase.PROPOSAL_TO_ACCEPTANCE, watch.pairKey);
+            tracer.cancel(Phase.ACCEPTANCE_TO_TARGET_REACHED, watch.pairKey);
+            tracer.cancel(Phase.TARGET_REACHED_TO_BREED, watch.pairKey);
+            logger.debug("Mating between {} and {} expired in phase {}", watch.animal1.getId(), watch.animal2.getId(),
+                    watch.phase);
+            if (watch.animal1.exists()) {
+                watch.animal1.send(new MatingCleanupEvent(watch.animal1, watch.animal2));
+            } else if (watch.animal2.exists()) {
+                watch.animal2.send(new MatingCleanupEvent(watch.animal1, watch.animal2));
+            }
+        }
+        expiredPairs.clear();
+    }
+
+    /**
+     * Removes the mating state and behavior of the animals whose state was restored without a watched pair, and returns
+     * them to the pool of animals searching for a mate. Their partner, if it is loaded, is reset the same way.
+     */
+    private void resetUnwatchedMatings() {
+        watchdog.drainUnwatched(unwatchedAnimals);
+        for (int i = 0; i < unwatchedAnimals.size(); i++) {
+            EntityRef animal = unwatchedAnimals.get(i);
+            if (animal.exists() && animal.hasComponent(MatingStateComponent.class)) {
+                logger.debug("Resetting the restored mating state of {}", animal.getId());
+                resetMating(animal, false);
+                returnToPool(animal);
+            }
+        }
+        unwatchedAnimals.clear();
+    }
+
+    /**
+     * Saves every mating component modified during this tick once.
+     */
+    private void flushMatingWrites() {
+        for (EntityRef animal : dirtyMatingStates) {
+            MatingStateComponent matingState = animal.getComponent(MatingStateComponent.class);
+            if (matingState != null) {
+                animal.saveComponent(matingState);
+            }
+        }
+        dirtyMatingStates.clear();
+        for (EntityRef animal : dirtyMatingComponents) {
+            MatingComponent matingComponent = animal.getComponent(MatingComponent.class);
+            if (matingComponent != null) {
+                animal.saveComponent(matingComponent);
+            }
+        }
+        dirtyMatingComponents.clear();
+    }
+
     /**
      * Find nearby animals within a specified range.
      *
      * @param actorLocationComponent {@link LocationComponent} of the animal.
      * @param radius The radius within which to search for.
-     * @param animalName The name of the animal which is being searched.
+     * @param species The species id of the animals which are being searched.
      * @return A list of {@link EntityRef} of the nearby animals.
      */
-    private List<EntityRef> findNearbyAnimals(LocationComponent actorLocationComponent, float radius, String animalName) {
+    private List<EntityRef> findNearbyAnimals(LocationComponent actorLocationComponent, float radius, int species) {
+        long startTime = metrics.startTimer();
         List<EntityRef> animalsWithinRange = Lists.newArrayList();
-        float distanceSquared = radius * radius;
-        Iterable<EntityRef> allAnimals = entityManager.getEntitiesWith(WildAnimalComponent.class);
-
-        Vector3f actorPosition = actorLocationComponent.getWorldPosition(new Vector3f());
-        Vector3f animalLocation = new Vector3f();
-        for (EntityRef animal : allAnimals) {
-            LocationComponent animalLocationComponent = animal.getComponent(LocationComponent.class);
-            if (animal.getComponent(AliveCharacterComponent.class) == null) {
-                continue;
-            }
-            animalLocationComponent.getWorldPosition(animalLocation);
-            if (animalLocation.distanceSquared(actorPosition) <= distanceSquared) {
-                if (animal.getComponent(WildAnimalComponent.class).name.equals(animalName)) {
-                    animalsWithinRange.add(animal);
-                }
-            }
-        }
+        int scanned = spatialIndex.findNearby(species, actorLocationComponent.getWorldPosition(actorPosition), radius,
+                animalsWithinRange);
+        metrics.recordSearch(startTime, scanned);
         return animalsWithinRange;
     }
 
     /**
-     * Filters the animals which have been activated for mating from a list of all potential mates.
-     *
-     * @param allAnimals List of all potential mates.
-     * @return List of {@link EntityRef} of the filtered potential mates.
-     */
-    private List<EntityRef> filterMatingActivatedAnimals(List<EntityRef> allAnimals) {
-        List<EntityRef> result = Lists.newArrayList();
-        for (EntityRef animal : allAnimals) {
-            if (animal.hasComponent(MatingComponent.class) && animal.getComponent(MatingComponent.class).readyToMate) {
-                result.add(animal);
-            }
+     * A pair in the mating process and the phase its current deadline belongs to.
+     */
+    private static final class PairWatch {
+        private final EntityRef animal1;
+        private final EntityRef animal2;
+        private final long pairKey;
+        private final MatingPhase phase;
+
+        private PairWatch(EntityRef animal1, EntityRef animal2, long pairKey, MatingPhase phase) {
+            this.animal1 = animal1;
+            this.animal2 = animal2;
+            this.pairKey = pairKey;
+            this.phase = phase;
         }
-        return result;
     }
 
-    private Long getEntityIDFromString(String delayEventID) {
-        return Long.parseLong(delayEventID.substring(delayEventID.indexOf(':', delayEventID.indexOf(':') + 1) + 1));
+    /**
+     * When an animal searches for a mate next, and how many of its searches in a row found none.
+     */
+    private static final class SearchSchedule {
+        /**
+         * The scheduled search in {@link #searchWheel}, or null while the search is due.
+         */
+        private TimingWheel.Timeout<EntityRef> timeout;
+        /**
+         * Whether the animal is in {@link #dueSearches}.
+         */
+        private boolean due;
+        private int failedSearches;
+    }
+
+    /**
+     * Scores the candidates visited by a search for a mate and offers them to {@link #candidates}.
+     * <p>
+     * The score adds the proximity of the candidate (1 next to the animal, 0 at the search radius) and the fitness of its
+     * speed (from 0 for the slowest to 1 for the fastest allele), and subtracts its kinship with the animal. Candidates
+     * which are unavailable or too closely related are skipped.
+     */
+    private final class CandidateScorer implements SpatialHashGrid.Visitor<EntityRef> {
+        private EntityRef animalEntity;
+        private float radius;
+        private TraitSchema schema;
+
+        private void begin(EntityRef searchingAnimal, float searchRadius, TraitSchema speciesSchema) {
+            this.animalEntity = searchingAnimal;
+            this.radius = searchRadius;
+            this.schema = speciesSchema;
+        }
+
+        @Override
+        public void visit(EntityRef candidate, float distanceSquared) {
+            if (candidate.equals(animalEntity) || !isAvailableForMating(candidate)) {
+                return;
+            }
+            double kinship = pedigreeSystem.getKinship(animalEntity, candidate);
+            if (kinship > maxKinship) {
+                return;
+            }
+            float proximity = Math.max(0f, 1f - (float) Math.sqrt(distanceSquared) / radius);
+            AnimalGenomeComponent genomeComponent = candidate.getComponent(AnimalGenomeComponent.class);
+            float fitness = genomeComponent != null ? schema.expressNormalized(genomeComponent.genes, Trait.SPEED) : 0.5f;
+            candidates.offer(candidate, proximityWeight * proximity + fitnessWeight * fitness - kinshipWeight * kinship);
+        }
     }
 }
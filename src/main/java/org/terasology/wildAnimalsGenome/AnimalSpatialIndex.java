@@ -0,0 +1,68 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome;
+
+import org.joml.Vector3fc;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.wildAnimalsGenome.util.SpatialHashGrid;
+
+import java.util.List;
+
+/**
+ * Keeps track of the positions of all alive wild animals, grouped by species, so that nearby animals can be found
+ * without scanning every animal in the world.
+ */
+public interface AnimalSpatialIndex {
+
+    /**
+     * Edge length, in blocks, of the regions in which animals are counted.
+     */
+    int REGION_SIZE = 32;
+
+    /**
+     * Finds alive animals of the given species within a specified range.
+     *
+     * @param species The species id of the animals, as assigned by the {@link BreedingProfileSystem}.
+     * @param position The center of the search.
+     * @param radius The radius within which to search for.
+     * @param result The list to which the nearby animals are added.
+     * @return The number of candidates whose distance was checked.
+     */
+    int findNearby(int species, Vector3fc position, float radius, List<EntityRef> result);
+
+    /**
+     * Passes the alive animals of the given species within a specified range to the visitor, together with their squared
+     * distance to the position, without collecting them in a list.
+     *
+     * @return The number of candidates whose distance was checked.
+     */
+    int visitNearby(int species, Vector3fc position, float radius, SpatialHashGrid.Visitor<EntityRef> visitor);
+
+    /**
+     * Finds the alive animals of every species inside a box, e.g. a chunk. The minimum corner is inclusive and the
+     * maximum corner exclusive.
+     *
+     * @return The number of candidates whose position was checked.
+     */
+    int findInBox(Vector3fc min, Vector3fc max, List<EntityRef> result);
+
+    /**
+     * @return The number of animals currently tracked.
+     */
+    int size();
+
+    /**
+     * Returns the number of alive animals, of any species, in the region containing the position.
+     * Regions are columns of {@link #REGION_SIZE} by {@link #REGION_SIZE} blocks spanning the whole height of the world.
+     */
+    int getRegionPopulation(Vector3fc position);
+
+    /**
+     * @return The key of the region containing the given horizontal position.
+     */
+    static long regionKey(float x, float z) {
+        long regionX = (long) Math.floor(x / REGION_SIZE);
+        long regionZ = (long) Math.floor(z / REGION_SIZE);
+        return (regionX << Integer.SIZE) | (regionZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,183 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome;
+
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.characters.AliveCharacterComponent;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.wildAnimals.component.WildAnimalComponent;
+import org.terasology.wildAnimalsGenome.util.LongObjectHashMap;
+import org.terasology.wildAnimalsGenome.util.SpatialHashGrid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains a {@link SpatialHashGrid} per species, and the population of every region, from the location changes of
+ * alive wild animals. Animals are grouped by the species id of their prefab, which is resolved once when they are first
+ * tracked.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(AnimalSpatialIndex.class)
+public class AnimalSpatialIndexSystem extends BaseComponentSystem implements AnimalSpatialIndex {
+
+    /**
+     * Edge length of a grid cell. Matches the default mating search radius, so a search visits at most 3x3x3 cells.
+     */
+    private static final float CELL_SIZE = 10f;
+
+    @In
+    private BreedingProfileSystem profiles;
+
+    private final LongObjectHashMap<SpatialHashGrid<EntityRef>> gridsBySpecies = new LongObjectHashMap<>();
+    private final List<SpatialHashGrid<EntityRef>> grids = new ArrayList<>();
+    private final Map<EntityRef, TrackedAnimal> trackedAnimals = new HashMap<>();
+    private final LongObjectHashMap<RegionPopulation> regionPopulations = new LongObjectHashMap<>();
+    private final Vector3f position = new Vector3f();
+
+    @Override
+    public void shutdown() {
+        gridsBySpecies.clear();
+        grids.clear();
+        trackedAnimals.clear();
+        regionPopulations.clear();
+    }
+
+    @ReceiveEvent(components = {WildAnimalComponent.class, AliveCharacterComponent.class})
+    public void onAnimalActivated(OnActivatedComponent event, EntityRef entityRef, LocationComponent locationComponent) {
+        track(entityRef, locationComponent);
+    }
+
+    @ReceiveEvent(components = {WildAnimalComponent.class, AliveCharacterComponent.class})
+    public void onAnimalChanged(OnChangedComponent event, EntityRef entityRef, LocationComponent locationComponent) {
+        track(entityRef, locationComponent);
+    }
+
+    @ReceiveEvent(components = {WildAnimalComponent.class, LocationComponent.class, AliveCharacterComponent.class})
+    public void onAnimalDeactivated(BeforeDeactivateComponent event, EntityRef entityRef) {
+        untrack(entityRef);
+    }
+
+    @Override
+    public int findNearby(int species, Vector3fc center, float radius, List<EntityRef> result) {
+        SpatialHashGrid<EntityRef> grid = gridsBySpecies.get(species);
+        if (grid == null) {
+            return 0;
+        }
+        return grid.query(center.x(), center.y(), center.z(), radius, result);
+    }
+
+    @Override
+    public int visitNearby(int species, Vector3fc center, float radius, SpatialHashGrid.Visitor<EntityRef> visitor) {
+        SpatialHashGrid<EntityRef> grid = gridsBySpecies.get(species);
+        if (grid == null) {
+            return 0;
+        }
+        return grid.query(center.x(), center.y(), center.z(), radius, visitor);
+    }
+
+    @Override
+    public int findInBox(Vector3fc min, Vector3fc max, List<EntityRef> result) {
+        int scanned = 0;
+        for (int i = 0; i < grids.size(); i++) {
+            scanned += grids.get(i).queryBox(min.x(), min.y(), min.z(), max.x(), max.y(), max.z(), result);
+        }
+        return scanned;
+    }
+
+    @Override
+    public int size() {
+        return trackedAnimals.size();
+    }
+
+    @Override
+    public int getRegionPopulation(Vector3fc center) {
+        RegionPopulation population = regionPopulations.get(AnimalSpatialIndex.regionKey(center.x(), center.z()));
+        return population != null ? population.count : 0;
+    }
+
+    private void track(EntityRef entityRef, LocationComponent locationComponent) {
+        locationComponent.getWorldPosition(position);
+        if (!position.isFinite()) {
+            // The animal is not placed in the world (e.g. it was just created and is about to be teleported).
+            untrack(entityRef);
+            return;
+        }
+        long region = AnimalSpatialIndex.regionKey(position.x, position.z);
+        TrackedAnimal tracked = trackedAnimals.get(entityRef);
+        if (tracked == null) {
+            // The prefab of an entity does not change, so neither does its species.
+            tracked = new TrackedAnimal(profiles.getSpecies(entityRef), region);
+            trackedAnimals.put(entityRef, tracked);
+            incrementRegion(region);
+        } else if (tracked.region != region) {
+            decrementRegion(tracked.region);
+            incrementRegion(region);
+            tracked.region = region;
+        }
+        SpatialHashGrid<EntityRef> grid = gridsBySpecies.get(tracked.species);
+        if (grid == null) {
+            grid = new SpatialHashGrid<>(CELL_SIZE);
+            gridsBySpecies.put(tracked.species, grid);
+            grids.add(grid);
+        }
+        grid.put(entityRef, position.x, position.y, position.z);
+    }
+
+    private void untrack(EntityRef entityRef) {
+        TrackedAnimal tracked = trackedAnimals.remove(entityRef);
+        if (tracked != null) {
+            gridsBySpecies.get(tracked.species).remove(entityRef);
+            decrementRegion(tracked.region);
+        }
+    }
+
+    private void incrementRegion(long region) {
+        RegionPopulation population = regionPopulations.get(region);
+        if (population == null) {
+            population = new RegionPopulation();
+            regionPopulations.put(region, population);
+        }
+        population.count++;
+    }
+
+    private void decrementRegion(long region) {
+        RegionPopulation population = regionPopulations.get(region);
+        if (population != null && --population.count <= 0) {
+            regionPopulations.remove(region);
+        }
+    }
+
+    /**
+     * The species and region under which an animal is currently indexed.
+     */
+    private static final class TrackedAnimal {
+        private final int species;
+        private long region;
+
+        private TrackedAnimal(int species, long region) {
+            this.species = species;
+            this.region = region;
+        }
+    }
+
+    /**
+     * Mutable count of the animals in a region, so that moving an animal does not box a new count.
+     */
+    private static final class RegionPopulation {
+        private int count;
+    }
+}
@@ -2,6 +2,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.wildAnimalsGenome.BehaviorNode;
 
+import org.joml.RoundingMode;
 import org.joml.Vector3f;
 import org.joml.Vector3i;
 import org.terasology.engine.entitySystem.entity.EntityRef;
@@ -9,42 +10,84 @@ import org.terasology.engine.logic.behavior.BehaviorAction;
 import org.terasology.engine.logic.behavior.core.Actor;
 import org.terasology.engine.logic.behavior.core.BaseAction;
 import org.terasology.engine.logic.behavior.core.BehaviorState;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.registry.In;
 import org.terasology.module.behaviors.components.MinionMoveComponent;
-import org.terasology.wildAnimalsGenome.component.MatingComponent;
+import org.terasology.wildAnimalsGenome.AnimalMatingAuthoritySystem;
+import org.terasology.wildAnimalsGenome.MatingRendezvousSystem;
+import org.terasology.wildAnimalsGenome.component.MatingStateComponent;
 
 /**
- * Updates the target field in the {@link MinionMoveComponent} of the animal's mate with the target set in the current animal's {@link
- * MinionMoveComponent}
+ * Sets the targets in the {@link MinionMoveComponent} of the animal and its mate to a walkable meeting point between
+ * them, chosen by the {@link MatingRendezvousSystem}.
+ * <p>
+ * The targets are chosen once per pair by whichever animal runs this node first; the other animal reuses its stored
+ * target. If no meeting point is found, the mate is sent next to the target of the current animal. The mating states
+ * are saved by the {@link AnimalMatingAuthoritySystem} with its other writes of the tick.
  */
 @BehaviorAction(name = "set_mating_target_block")
 public class SetMatingTargetBlockNode extends BaseAction {
+
+    @In
+    private transient MatingRendezvousSystem rendezvousSystem;
+    @In
+    private transient AnimalMatingAuthoritySystem matingSystem;
+
     @Override
     public void construct(Actor actor) {
-        MatingComponent matingComponent = actor.getComponent(MatingComponent.class);
-        EntityRef matingEntity = matingComponent.matingEntity;
-        MatingComponent matingComponent1 = matingEntity.getComponent(MatingComponent.class);
+        MatingStateComponent matingState = actor.getComponent(MatingStateComponent.class);
+        if (matingState == null) {
+            return;
+        }
+        EntityRef matingEntity = matingState.matingEntity;
+        MatingStateComponent mateState = matingEntity.getComponent(MatingStateComponent.class);
 
         MinionMoveComponent actorMoveComponent = actor.getComponent(MinionMoveComponent.class);
         MinionMoveComponent matingEntityMoveComponent = matingEntity.getComponent(MinionMoveComponent.class);
+        if (mateState == null || matingEntityMoveComponent == null) {
+            return;
+        }
 
-        if (actorMoveComponent.target != null) {
-            Vector3i actorTarget = actorMoveComponent.target;
-            matingEntityMoveComponent.target = new Vector3i(actorTarget);
-            matingEntityMoveComponent.target.add(1, 0, 0);
-            matingEntity.saveComponent(matingEntityMoveComponent);
+        if (matingState.target != null) {
+            // The mate already chose the meeting point; make sure the animal still heads there.
+            actorMoveComponent.target = new Vector3i(matingState.target, RoundingMode.FLOOR);
+            actor.save(actorMoveComponent);
+            return;
+        }
 
-            matingComponent.target = new Vector3f(actorMoveComponent.target);
-            matingComponent1.target = new Vector3f(matingEntityMoveComponent.target);
-            actor.save(matingComponent);
-            matingEntity.saveComponent(matingComponent1);
+        Vector3i actorTarget = new Vector3i();
+        Vector3i mateTarget = new Vector3i();
+        LocationComponent actorLocation = actor.getComponent(LocationComponent.class);
+        LocationComponent mateLocation = matingEntity.getComponent(LocationComponent.class);
+        boolean found = actorLocation != null && mateLocation != null && rendezvousSystem.findRendezvous(
+                actorLocation.getWorldPosition(new Vector3f()), mateLocation.getWorldPosition(new Vector3f()),
+                actorTarget, mateTarget);
+        if (!found) {
+            if (actorMoveComponent.target == null) {
+                return;
+            }
+            actorTarget.set(actorMoveComponent.target);
+            mateTarget.set(actorTarget).add(1, 0, 0);
         }
 
+        actorMoveComponent.target = actorTarget;
+        actor.save(actorMoveComponent);
+        matingEntityMoveComponent.target = mateTarget;
+        matingEntity.saveComponent(matingEntityMoveComponent);
+
+        matingState.target = new Vector3f(actorTarget);
+        mateState.target = new Vector3f(mateTarget);
+        matingSystem.markMatingStateDirty(actor.getEntity());
+        matingSystem.markMatingStateDirty(matingEntity);
     }
 
     @Override
     public BehaviorState modify(Actor actor, BehaviorState behaviorState) {
-        MatingComponent matingComponent = actor.getComponent(MatingComponent.class);
-        EntityRef matingEntity = matingComponent.matingEntity;
+        MatingStateComponent matingState = actor.getComponent(MatingStateComponent.class);
+        if (matingState == null) {
+            return BehaviorState.FAILURE;
+        }
+        EntityRef matingEntity = matingState.matingEntity;
         MinionMoveComponent matingEntityMoveComponent = matingEntity.getComponent(MinionMoveComponent.class);
         if (matingEntityMoveComponent == null) {
             return BehaviorState.FAILURE;
@@ -57,5 +100,3 @@ public class SetMatingTargetBlockNode extends BaseAction {
     }
 
 }
-
-
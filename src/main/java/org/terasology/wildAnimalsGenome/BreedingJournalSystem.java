@@ -0,0 +1,128 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.core.PathManager;
+import org.terasology.engine.core.Time;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.registry.In;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.wildAnimalsGenome.component.AnimalGenomeComponent;
+import org.terasology.wildAnimalsGenome.event.MatingInitiatedEvent;
+import org.terasology.wildAnimalsGenome.event.OffspringCreatedEvent;
+import org.terasology.wildAnimalsGenome.journal.BreedingJournal;
+import org.terasology.wildAnimalsGenome.journal.BreedingJournalReader;
+import org.terasology.wildAnimalsGenome.journal.BreedingJournalWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Optionally records every pairing and birth in a {@link BreedingJournal} in the log directory, for offline analysis
+ * with a {@link BreedingJournalReader}.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class BreedingJournalSystem extends BaseComponentSystem {
+
+    private static final Logger logger = LoggerFactory.getLogger(BreedingJournalSystem.class);
+    private static final String JOURNAL_DIRECTORY_NAME = "breedingJournal";
+
+    /**
+     * Number of records per segment, which makes segments of about 3 MB.
+     */
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+
+    @In
+    private Time time;
+    @In
+    private BreedingProfileSystem profiles;
+
+    /**
+     * The open journal, or null while journaling is disabled.
+     */
+    private BreedingJournalWriter writer;
+
+    @Override
+    public void preSave() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        closeJournal();
+    }
+
+    @Command(shortDescription = "Records every pairing and birth in " + JOURNAL_DIRECTORY_NAME, runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String breedingJournal(@CommandParam("enabled") boolean enabled) {
+        if (!enabled) {
+            closeJournal();
+            return "Breeding journal disabled";
+        }
+        if (writer == null) {
+            Path path = getJournalPath();
+            try {
+                writer = new BreedingJournalWriter(path, RECORDS_PER_SEGMENT);
+            } catch (IOException e) {
+                logger.error("Could not open the breeding journal in {}", path, e);
+                return "Could not open the breeding journal: " + e.getMessage();
+            }
+        }
+        return "Recording the breeding journal in " + getJournalPath();
+    }
+
+    @ReceiveEvent
+    public void onMatingInitiated(MatingInitiatedEvent event, EntityRef entityRef) {
+        if (writer != null) {
+            append(BreedingJournal.PAIRING, profiles.getSpecies(event.animal1), event.animal1, event.animal2,
+                    EntityRef.NULL, 0);
+        }
+    }
+
+    @ReceiveEvent
+    public void onOffspringBorn(OffspringCreatedEvent event, EntityRef entityRef) {
+        if (writer == null) {
+            return;
+        }
+        EntityRef offspring = event.getOffspring();
+        AnimalGenomeComponent genomeComponent = offspring.getComponent(AnimalGenomeComponent.class);
+        append(BreedingJournal.BIRTH, profiles.getSpecies(offspring), event.getOrganism1(), event.getOrganism2(),
+                offspring, genomeComponent != null ? genomeComponent.genes : 0);
+    }
+
+    private void append(int type, int species, EntityRef parent1, EntityRef parent2, EntityRef offspring, long genes) {
+        try {
+            writer.append(time.getGameTimeInMs(), type, species, parent1.getId(), parent2.getId(), offspring.getId(),
+                    genes);
+        } catch (IOException e) {
+            logger.error("Could not write to the breeding journal, disabling it", e);
+            closeJournal();
+        }
+    }
+
+    private void closeJournal() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.error("Could not close the breeding journal", e);
+        }
+        writer = null;
+    }
+
+    private Path getJournalPath() {
+        return PathManager.getInstance().getLogPath().resolve(JOURNAL_DIRECTORY_NAME);
+    }
+}
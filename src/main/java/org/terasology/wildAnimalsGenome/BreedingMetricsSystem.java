@@ -0,0 +1,151 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.core.PathManager;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.registry.Share;
+import org.terasology.wildAnimalsGenome.metrics.BreedingMetrics;
+import org.terasology.wildAnimalsGenome.metrics.PairLifecycleTracer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Owns the {@link BreedingMetrics} and {@link PairLifecycleTracer} of the breeding systems, and exposes them through
+ * console commands and CSV files in the log directory.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(BreedingMetricsSystem.class)
+public class BreedingMetricsSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+    private static final Logger logger = LoggerFactory.getLogger(BreedingMetricsSystem.class);
+    private static final String DUMP_FILE_NAME = "breedingMetrics.csv";
+
+    private static final String TRACE_FILE_NAME = "matingLatencies.csv";
+
+    private final BreedingMetrics metrics = new BreedingMetrics();
+    private final PairLifecycleTracer tracer = new PairLifecycleTracer();
+
+    /**
+     * Delay between consecutive dumps in milliseconds, or 0 if the metrics are not dumped.
+     */
+    private long dumpInterval;
+
+    /**
+     * Time elapsed since the last dump, in milliseconds.
+     */
+    private float timeSinceLastDump;
+
+    public BreedingMetrics getMetrics() {
+        return metrics;
+    }
+
+    public PairLifecycleTracer getTracer() {
+        return tracer;
+    }
+
+    @Override
+    public void update(float delta) {
+        if (dumpInterval <= 0) {
+            return;
+        }
+        timeSinceLastDump += delta * 1000f;
+        if (timeSinceLastDump >= dumpInterval) {
+            timeSinceLastDump = 0;
+            dump();
+        }
+    }
+
+    @Command(shortDescription = "Shows the breeding metrics", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String breedingMetrics() {
+        return metrics.toString();
+    }
+
+    @Command(shortDescription = "Enables or disables the recording of breeding metrics", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String breedingMetricsEnable(@CommandParam("enabled") boolean enabled) {
+        metrics.setEnabled(enabled);
+        return "Breeding metrics " + (enabled ? "enabled" : "disabled");
+    }
+
+    @Command(shortDescription = "Resets the breeding counters", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String breedingMetricsReset() {
+        metrics.reset();
+        return "Breeding metrics reset";
+    }
+
+    @Command(shortDescription = "Periodically appends the breeding metrics to " + DUMP_FILE_NAME,
+            helpText = "Dumps the metrics every given number of seconds; 0 stops dumping.", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String breedingMetricsDump(@CommandParam("seconds") int seconds) {
+        dumpInterval = Math.max(seconds, 0) * 1000L;
+        timeSinceLastDump = 0;
+        if (dumpInterval == 0) {
+            return "Stopped dumping breeding metrics";
+        }
+        metrics.setEnabled(true);
+        return "Dumping breeding metrics every " + seconds + " s to " + getDumpPath();
+    }
+
+    @Command(shortDescription = "Shows the latency percentiles of the mating pair lifecycle", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String breedingTrace() {
+        return tracer.toString();
+    }
+
+    @Command(shortDescription = "Enables or disables the tracing of mating pair latencies", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String breedingTraceEnable(@CommandParam("enabled") boolean enabled) {
+        tracer.setEnabled(enabled);
+        return "Mating pair tracing " + (enabled ? "enabled" : "disabled");
+    }
+
+    @Command(shortDescription = "Exports the mating pair latency histograms to " + TRACE_FILE_NAME, runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String breedingTraceExport() {
+        Path path = PathManager.getInstance().getLogPath().resolve(TRACE_FILE_NAME);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            tracer.exportCsv(writer);
+        } catch (IOException e) {
+            logger.error("Could not export mating pair latencies to {}", path, e);
+            return "Could not export mating pair latencies: " + e.getMessage();
+        }
+        return "Exported mating pair latencies to " + path;
+    }
+
+    private void dump() {
+        Path path = getDumpPath();
+        boolean writeHeader = !Files.exists(path);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (writeHeader) {
+                writer.write(BreedingMetrics.csvHeader());
+                writer.newLine();
+            }
+            writer.write(metrics.toCsvRow(System.currentTimeMillis()));
+            writer.newLine();
+        } catch (IOException e) {
+            logger.error("Could not dump breeding metrics to {}, stopping the dump", path, e);
+            dumpInterval = 0;
+        }
+    }
+
+    private Path getDumpPath() {
+        return PathManager.getInstance().getLogPath().resolve(DUMP_FILE_NAME);
+    }
+}
@@ -0,0 +1,255 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.wildAnimals.component.WildAnimalComponent;
+import org.terasology.wildAnimalsGenome.component.BreedingProfileComponent;
+import org.terasology.wildAnimalsGenome.genetics.Trait;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+import org.terasology.wildAnimalsGenome.util.IntAliasSampler;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the {@link BreedingProfileComponent}s of all prefabs into arrays indexed by a dense species id, once at
+ * startup, so that the breeding systems look up their parameters by index instead of by name.
+ * <p>
+ * Offspring prefabs without a profile of their own share the species of their parents, so that both use the same
+ * {@link TraitSchema}. Every other wild animal prefab without a profile is a species of its own with the default
+ * profile, so that different animals never pair. Animals without a prefab belong to {@link #DEFAULT_SPECIES}.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(BreedingProfileSystem.class)
+public class BreedingProfileSystem extends BaseComponentSystem {
+    public static final int DEFAULT_SPECIES = 0;
+    public static final int DEFAULT_REGION_POPULATION_CAP = 40;
+
+    private static final String DEFAULT_SPECIES_NAME = "default";
+
+    private static final Logger logger = LoggerFactory.getLogger(BreedingProfileSystem.class);
+
+    @In
+    private PrefabManager prefabManager;
+
+    private final Map<Prefab, Integer> speciesByPrefab = new HashMap<>();
+
+    private String[] speciesNames;
+    private float[] searchRadii;
+    private long[] searchIntervals;
+    private float[] targetReachedDistancesSquared;
+    private IntAliasSampler[] litterSizes;
+    private Prefab[] offspringPrefabs;
+    private TraitSchema[] schemas;
+    private float maxSearchRadius;
+
+    /**
+     * Number of animals of all species in a region at which breeding stops, both for the mating process and for dormant
+     * populations.
+     */
+    private int regionPopulationCap = DEFAULT_REGION_POPULATION_CAP;
+
+    @Override
+    public void initialise() {
+        List<BreedingProfileComponent> profiles = new ArrayList<>();
+        List<Prefab> prefabs = new ArrayList<>();
+        profiles.add(new BreedingProfileComponent());
+        prefabs.add(null);
+        List<Prefab> offspring = new ArrayList<>();
+        offspring.add(null);
+        for (Prefab prefab : prefabManager.listPrefabs(BreedingProfileComponent.class)) {
+            speciesByPrefab.put(prefab, profiles.size());
+            BreedingProfileComponent profile = prefab.getComponent(BreedingProfileComponent.class);
+            profiles.add(profile);
+            prefabs.add(prefab);
+            offspring.add(resolveOffspringPrefab(profile.offspringPrefab, prefab));
+        }
+        int profiledCount = profiles.size();
+        for (int species = 1; species < profiledCount; species++) {
+            if (offspring.get(species) != null) {
+                speciesByPrefab.putIfAbsent(offspring.get(species), species);
+            }
+        }
+        for (Prefab prefab : prefabManager.listPrefabs(WildAnimalComponent.class)) {
+            if (!speciesByPrefab.containsKey(prefab)) {
+                speciesByPrefab.put(prefab, profiles.size());
+                profiles.add(new BreedingProfileComponent());
+                prefabs.add(prefab);
+                offspring.add(null);
+            }
+        }
+
+        int count = profiles.size();
+        speciesNames = new String[count];
+        searchRadii = new float[count];
+        searchIntervals = new long[count];
+        targetReachedDistancesSquared = new float[count];
+        litterSizes = new IntAliasSampler[count];
+        offspringPrefabs = new Prefab[count];
+        schemas = new TraitSchema[count];
+        for (int species = 0; species < count; species++) {
+            BreedingProfileComponent profile = profiles.get(species);
+            speciesNames[species] = species == DEFAULT_SPECIES ? DEFAULT_SPECIES_NAME
+                    : prefabs.get(species).getUrn().getResourceName().toString();
+            String speciesName = speciesNames[species];
+            searchRadii[species] = profile.searchRadius;
+            if (!(profile.searchRadius > 0)) {
+                logger.warn("Search radius {} of the breeding profile of {} is not positive, using {}",
+                        profile.searchRadius, speciesName, profiles.get(DEFAULT_SPECIES).searchRadius);
+                searchRadii[species] = profiles.get(DEFAULT_SPECIES).searchRadius;
+            }
+            searchIntervals[species] = Math.max(profile.searchInterval, 1L);
+            targetReachedDistancesSquared[species] = profile.targetReachedDistanceSquared;
+            litterSizes[species] = createLitterSampler(profile.litterSizeWeights, speciesName);
+            offspringPrefabs[species] = offspring.get(species);
+            schemas[species] = TraitSchema.createDefault(parseTraits(profile.heritableTraits, speciesName));
+            maxSearchRadius = Math.max(maxSearchRadius, searchRadii[species]);
+        }
+        logger.info("Resolved {} breeding profiles and {} species", profiledCount - 1, count);
+    }
+
+    /**
+     * @return The species id of the prefab of an animal.
+     */
+    public int getSpecies(EntityRef animal) {
+        return getSpecies(animal.getParentPrefab());
+    }
+
+    public int getSpecies(Prefab prefab) {
+        if (prefab == null) {
+            return DEFAULT_SPECIES;
+        }
+        Integer species = speciesByPrefab.get(prefab);
+        return species != null ? species : DEFAULT_SPECIES;
+    }
+
+    /**
+     * @return The number of species ids, including {@link #DEFAULT_SPECIES}.
+     */
+    public int size() {
+        return schemas.length;
+    }
+
+    /**
+     * @return The name of the prefab declaring the breeding profile of the species, without its module.
+     */
+    public String getSpeciesName(int species) {
+        return speciesNames[species];
+    }
+
+    public float getSearchRadius(int species) {
+        return searchRadii[species];
+    }
+
+    /**
+     * @return The largest search radius of all species.
+     */
+    public float getMaxSearchRadius() {
+        return maxSearchRadius;
+    }
+
+    public long getSearchInterval(int species) {
+        return searchIntervals[species];
+    }
+
+    public float getTargetReachedDistanceSquared(int species) {
+        return targetReachedDistancesSquared[species];
+    }
+
+    public IntAliasSampler getLitterSizes(int species) {
+        return litterSizes[species];
+    }
+
+    /**
+     * @return The prefab of the offspring, or null to use the prefab of the parents.
+     */
+    public Prefab getOffspringPrefab(int species) {
+        return offspringPrefabs[species];
+    }
+
+    public TraitSchema getSchema(int species) {
+        return schemas[species];
+    }
+
+    /**
+     * @return The number of animals per {@link AnimalSpatialIndex#REGION_SIZE region} at which breeding stops.
+     */
+    public int getRegionPopulationCap() {
+        return regionPopulationCap;
+    }
+
+    public void setRegionPopulationCap(int regionPopulationCap) {
+        this.regionPopulationCap = Math.max(regionPopulationCap, 0);
+    }
+
+    /**
+     * @return A sampler of the litter sizes, or one which always draws a single offspring if no weight is positive.
+     */
+    private static IntAliasSampler createLitterSampler(List<Float> weights, String speciesName) {
+        double[] litterWeights = new double[weights.size()];
+        int[] litterSizes = new int[weights.size()];
+        boolean anyPositive = false;
+        for (int i = 0; i < litterWeights.length; i++) {
+            Float weight = weights.get(i);
+            litterWeights[i] = weight != null && weight > 0 ? weight : 0;
+            litterSizes[i] = i + 1;
+            anyPositive |= litterWeights[i] > 0;
+        }
+        if (!anyPositive) {
+            if (!weights.isEmpty()) {
+                logger.warn("No litter size weight of the breeding profile of {} is positive, using litters of one",
+                        speciesName);
+            }
+            return new IntAliasSampler(new double[]{1}, new int[]{1});
+        }
+        return new IntAliasSampler(litterWeights, litterSizes);
+    }
+
+    private Prefab resolveOffspringPrefab(String name, Prefab parentPrefab) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        Prefab prefab = prefabManager.getPrefab(name);
+        if (prefab == null) {
+            logger.warn("Unknown offspring prefab {} in the breeding profile of {}", name, parentPrefab);
+        }
+        return prefab;
+    }
+
+    /**
+     * @return The named traits, or all traits if none is named or none of the names is known.
+     */
+    private static Set<Trait> parseTraits(List<String> names, String speciesName) {
+        if (names.isEmpty()) {
+            return EnumSet.allOf(Trait.class);
+        }
+        Set<Trait> traits = EnumSet.noneOf(Trait.class);
+        for (String name : names) {
+            try {
+                traits.add(Trait.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unknown heritable trait {} in the breeding profile of {}", name, speciesName);
+            }
+        }
+        if (traits.isEmpty()) {
+            logger.warn("No known heritable trait in the breeding profile of {}, inheriting all traits", speciesName);
+            return EnumSet.allOf(Trait.class);
+        }
+        return traits;
+    }
+}
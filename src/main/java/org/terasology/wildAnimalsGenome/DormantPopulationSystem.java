@@ -0,0 +1,367 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome;
+
+import org.joml.Vector3f;
+import org.joml.Vector3i;
+import org.joml.Vector3ic;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.network.ClientComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.world.WorldComponent;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.chunks.Chunks;
+import org.terasology.engine.world.chunks.event.BeforeChunkUnload;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.wildAnimals.component.WildAnimalComponent;
+import org.terasology.wildAnimalsGenome.component.DormantPopulationComponent;
+import org.terasology.wildAnimalsGenome.component.MatingStateComponent;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+import org.terasology.wildAnimalsGenome.metrics.BreedingMetrics;
+import org.terasology.wildAnimalsGenome.population.DormantPopulation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Replaces the wild animals in regions far from every player by {@link DormantPopulation}s, which breed with a cheap
+ * statistical step instead of the per-animal mating process, and recreates the animals once a player comes close.
+ * <p>
+ * Animals are folded into the population of their region when their chunk is unloaded, instead of being stored with
+ * it, and recreated when a player is within {@link #activeDistance} of the region and its blocks are relevant. Animals
+ * which are in the process of mating are stored with their chunk as usual.
+ * <p>
+ * The pedigree entries of folded animals are kept: pedigree ids are dense, and the entries of ancestors are needed to
+ * compute the kinship of their descendants, which may still be alive. Recreated animals are founders.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class DormantPopulationSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+    /**
+     * Maximum number of animals recreated per scan, so that a player entering a crowded area does not stall a frame.
+     */
+    public static final int MAX_MATERIALIZED_PER_SCAN = 32;
+
+    /**
+     * Half the side of the square around the anchor of a population in which its animals are recreated, in blocks.
+     */
+    public static final float MATERIALIZE_SPREAD = 8f;
+
+    /**
+     * Defaults of the settings below, which the headless population simulator uses as well.
+     */
+    public static final long DEFAULT_SCAN_INTERVAL = 10000L;
+    public static final float DEFAULT_ACTIVE_DISTANCE = 112f;
+    public static final double DEFAULT_BIRTH_RATE = 0.02;
+    public static final double DEFAULT_DEATH_RATE = 0.01;
+
+    @In
+    private EntityManager entityManager;
+    @In
+    private PrefabManager prefabManager;
+    @In
+    private WorldProvider worldProvider;
+    @In
+    private AnimalGeneticsSystem geneticsSystem;
+    @In
+    private MatingRendezvousSystem rendezvousSystem;
+    @In
+    private BreedingMetricsSystem metricsSystem;
+    @In
+    private BreedingProfileSystem profiles;
+    @In
+    private AnimalSpatialIndex spatialIndex;
+
+    /**
+     * Delay between consecutive scans, each of which advances and recreates populations, in milliseconds.
+     */
+    private long scanInterval = DEFAULT_SCAN_INTERVAL;
+    private float timeSinceLastScan;
+
+    private float activeDistance = DEFAULT_ACTIVE_DISTANCE;
+
+    /**
+     * Expected births per animal and step in a sparse region, and expected deaths per animal and step.
+     */
+    private double birthRate = DEFAULT_BIRTH_RATE;
+    private double deathRate = DEFAULT_DEATH_RATE;
+
+    private boolean enabled = true;
+
+    private final Map<Long, List<DormantPopulation>> populationsByRegion = new HashMap<>();
+    private EntityRef populationEntity = EntityRef.NULL;
+    private SplittableRandom random;
+    private BreedingMetrics metrics;
+    private int dormantAnimals;
+
+    private final List<Vector3f> playerPositions = new ArrayList<>();
+    private final List<EntityRef> animalsToFold = new ArrayList<>();
+    private final Vector3f position = new Vector3f();
+    private final Vector3f chunkMin = new Vector3f();
+    private final Vector3f chunkMax = new Vector3f();
+    private final Vector3i target1 = new Vector3i();
+    private final Vector3i target2 = new Vector3i();
+
+    @Override
+    public void initialise() {
+        metrics = metricsSystem.getMetrics();
+    }
+
+    @Override
+    public void postBegin() {
+        random = new SplittableRandom(worldProvider.getSeed().hashCode() * 31L + 7);
+        for (EntityRef entity : entityManager.getEntitiesWith(DormantPopulationComponent.class)) {
+            populationEntity = entity;
+            load(entity.getComponent(DormantPopulationComponent.class));
+            return;
+        }
+        populationEntity = entityManager.create(new DormantPopulationComponent());
+    }
+
+    @Override
+    public void preSave() {
+        if (populationEntity.exists()) {
+            DormantPopulationComponent populationComponent =
+                    populationEntity.getComponent(DormantPopulationComponent.class);
+            save(populationComponent);
+            populationEntity.saveComponent(populationComponent);
+        }
+    }
+
+    @Override
+    public void update(float delta) {
+        timeSinceLastScan += delta * 1000f;
+        if (timeSinceLastScan < scanInterval) {
+            return;
+        }
+        timeSinceLastScan = 0;
+        collectPlayerPositions();
+        if (!enabled || playerPositions.isEmpty()) {
+            return;
+        }
+        stepPopulations();
+        materializeNearbyPopulations();
+        metrics.setDormantAnimals(dormantAnimals);
+    }
+
+    @Command(shortDescription = "Enables or disables statistical breeding far from players", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String dormantPopulations(@CommandParam("enabled") boolean enable) {
+        enabled = enable;
+        return "Dormant populations " + (enable ? "enabled" : "disabled") + ", " + dormantAnimals
+                + " dormant animals in " + populationsByRegion.size() + " regions";
+    }
+
+    private void collectPlayerPositions() {
+        playerPositions.clear();
+        for (EntityRef client : entityManager.getEntitiesWith(ClientComponent.class)) {
+            LocationComponent locationComponent = client.getComponent(ClientComponent.class).character
+                    .getComponent(LocationComponent.class);
+            if (locationComponent != null) {
+                Vector3f playerPosition = locationComponent.getWorldPosition(new Vector3f());
+                if (playerPosition.isFinite()) {
+                    playerPositions.add(playerPosition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the animals in a chunk which is about to be unloaded into the population of their region, and destroys them,
+     * so that they are not stored with the chunk.
+     */
+    @ReceiveEvent(components = WorldComponent.class)
+    public void onBeforeChunkUnload(BeforeChunkUnload event, EntityRef worldEntity) {
+        if (enabled) {
+            foldAnimalsInChunk(event.getChunkPos());
+        }
+    }
+
+    private void foldAnimalsInChunk(Vector3ic chunkPos) {
+        chunkMin.set(chunkPos.x() * Chunks.SIZE_X, chunkPos.y() * Chunks.SIZE_Y, chunkPos.z() * Chunks.SIZE_Z);
+        chunkMax.set(chunkMin).add(Chunks.SIZE_X, Chunks.SIZE_Y, Chunks.SIZE_Z);
+        // Destroying an animal removes it from the spatial index, so the animals are collected first.
+        animalsToFold.clear();
+        spatialIndex.findInBox(chunkMin, chunkMax, animalsToFold);
+        for (EntityRef animal : animalsToFold) {
+            if (animal.hasComponent(MatingStateComponent.class) || animal.getParentPrefab() == null) {
+                continue;
+            }
+            animal.getComponent(LocationComponent.class).getWorldPosition(position);
+            String species = animal.getComponent(WildAnimalComponent.class).name;
+            String prefab = animal.getParentPrefab().getName();
+            long region = AnimalSpatialIndex.regionKey(position.x, position.z);
+            getOrCreatePopulation(region, species, prefab)
+                    .add(geneticsSystem.getOrCreateGenes(animal), position.x, position.y, position.z);
+            dormantAnimals++;
+            animal.destroy();
+        }
+        animalsToFold.clear();
+    }
+
+    /**
+     * Advances every population. The species of a region share its
+     * {@link BreedingProfileSystem#getRegionPopulationCap() population cap}, so a population stops growing when the
+     * region as a whole reaches it. Newborns are bred with the {@link TraitSchema} of the prefab of the population.
+     */
+    private void stepPopulations() {
+        int regionPopulationCap = profiles.getRegionPopulationCap();
+        for (List<DormantPopulation> populations : populationsByRegion.values()) {
+            int regionPopulation = 0;
+            for (DormantPopulation population : populations) {
+                regionPopulation += population.getCount();
+            }
+            for (DormantPopulation population : populations) {
+                int capacity = Math.max(regionPopulationCap - (regionPopulation - population.getCount()), 1);
+                TraitSchema schema = geneticsSystem.getSchema(prefabManager.getPrefab(population.getPrefab()));
+                int change = population.step(random, birthRate, deathRate, capacity, schema);
+                regionPopulation += change;
+                dormantAnimals += change;
+            }
+        }
+    }
+
+    /**
+     * Recreates the animals of the populations near a player, with the genomes they were folded or born with.
+     */
+    private void materializeNearbyPopulations() {
+        float activeDistanceSquared = activeDistance * activeDistance;
+        int budget = MAX_MATERIALIZED_PER_SCAN;
+        Iterator<List<DormantPopulation>> regions = populationsByRegion.values().iterator();
+        while (budget > 0 && regions.hasNext()) {
+            List<DormantPopulation> populations = regions.next();
+            Iterator<DormantPopulation> iterator = populations.iterator();
+            while (budget > 0 && iterator.hasNext()) {
+                DormantPopulation population = iterator.next();
+                if (population.getCount() > 0 && !isActive(population, activeDistanceSquared)) {
+                    continue;
+                }
+                budget -= materialize(population, budget);
+                if (population.getCount() == 0) {
+                    iterator.remove();
+                }
+            }
+            if (populations.isEmpty()) {
+                regions.remove();
+            }
+        }
+    }
+
+    /**
+     * @return The number of animals created.
+     */
+    private int materialize(DormantPopulation population, int budget) {
+        Prefab prefab = prefabManager.getPrefab(population.getPrefab());
+        if (prefab == null) {
+            // The prefab is gone (e.g. its module was removed), so the population cannot come back.
+            dormantAnimals -= population.getCount();
+            population.clear();
+            return 0;
+        }
+        TraitSchema schema = geneticsSystem.getSchema(prefab);
+        int created = 0;
+        while (created < budget && population.getCount() > 0) {
+            position.set(population.getAnchorX() + (float) random.nextDouble(-MATERIALIZE_SPREAD, MATERIALIZE_SPREAD),
+                    population.getAnchorY(),
+                    population.getAnchorZ() + (float) random.nextDouble(-MATERIALIZE_SPREAD, MATERIALIZE_SPREAD));
+            if (rendezvousSystem.findRendezvous(position, position, target1, target2)) {
+                position.set(target1.x() + 0.5f, target1.y(), target1.z() + 0.5f);
+            } else {
+                position.set(population.getAnchorX(), population.getAnchorY(), population.getAnchorZ());
+            }
+            long genes = population.removeRandom(random) & schema.getGenomeMask();
+            geneticsSystem.createAnimal(prefab, schema, genes, position);
+            dormantAnimals--;
+            created++;
+        }
+        return created;
+    }
+
+    /**
+     * Whether a player is close to the population and the blocks around it are loaded.
+     */
+    private boolean isActive(DormantPopulation population, float activeDistanceSquared) {
+        return getNearestPlayerDistanceSquared(population.getAnchorX(), population.getAnchorZ()) < activeDistanceSquared
+                && worldProvider.isBlockRelevant((int) Math.floor(population.getAnchorX()),
+                (int) Math.floor(population.getAnchorY()), (int) Math.floor(population.getAnchorZ()));
+    }
+
+    private DormantPopulation getOrCreatePopulation(long region, String species, String prefab) {
+        List<DormantPopulation> populations = populationsByRegion.computeIfAbsent(region, key -> new ArrayList<>());
+        for (DormantPopulation population : populations) {
+            if (population.getSpecies().equals(species) && population.getPrefab().equals(prefab)) {
+                return population;
+            }
+        }
+        DormantPopulation population = new DormantPopulation(species, prefab, region);
+        populations.add(population);
+        return population;
+    }
+
+    private float getNearestPlayerDistanceSquared(float x, float z) {
+        float nearest = Float.MAX_VALUE;
+        for (Vector3f playerPosition : playerPositions) {
+            float dx = playerPosition.x - x;
+            float dz = playerPosition.z - z;
+            nearest = Math.min(nearest, dx * dx + dz * dz);
+        }
+        return nearest;
+    }
+
+    private void load(DormantPopulationComponent populationComponent) {
+        int offset = 0;
+        for (int i = 0; i < populationComponent.counts.size(); i++) {
+            DormantPopulation population = getOrCreatePopulation(populationComponent.regions.get(i),
+                    populationComponent.species.get(i), populationComponent.prefabs.get(i));
+            // Populations saved without their genomes are restored empty.
+            int count = Math.max(Math.min(populationComponent.counts.get(i),
+                    populationComponent.genomes.size() - offset), 0);
+            long[] genomes = new long[count];
+            for (int animal = 0; animal < count; animal++) {
+                genomes[animal] = populationComponent.genomes.get(offset + animal);
+            }
+            offset += count;
+            population.load(populationComponent.anchors.get(i * 3), populationComponent.anchors.get(i * 3 + 1),
+                    populationComponent.anchors.get(i * 3 + 2), genomes);
+            dormantAnimals += population.getCount();
+        }
+    }
+
+    private void save(DormantPopulationComponent populationComponent) {
+        populationComponent.species.clear();
+        populationComponent.prefabs.clear();
+        populationComponent.regions.clear();
+        populationComponent.counts.clear();
+        populationComponent.anchors.clear();
+        populationComponent.genomes.clear();
+        for (List<DormantPopulation> populations : populationsByRegion.values()) {
+            for (DormantPopulation population : populations) {
+                populationComponent.species.add(population.getSpecies());
+                populationComponent.prefabs.add(population.getPrefab());
+                populationComponent.regions.add(population.getRegion());
+                populationComponent.counts.add(population.getCount());
+                populationComponent.anchors.add(population.getAnchorX());
+                populationComponent.anchors.add(population.getAnchorY());
+                populationComponent.anchors.add(population.getAnchorZ());
+                for (int animal = 0; animal < population.getCount(); animal++) {
+                    populationComponent.genomes.add(population.getGenes(animal));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome;
+
+import org.joml.Vector3fc;
+import org.joml.Vector3i;
+import org.joml.Vector3ic;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.engine.world.OnChangedBlock;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.block.BlockComponent;
+import org.terasology.engine.world.chunks.Chunks;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chooses the blocks at which two mating animals meet.
+ * <p>
+ * The meeting point is a walkable block as close as possible to the midpoint between the animals, with a walkable
+ * neighbour for the partner. Walkability queries are cached per chunk for the most recently used chunks, and a chunk is
+ * dropped from the cache when one of its blocks changes.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(MatingRendezvousSystem.class)
+public class MatingRendezvousSystem extends BaseComponentSystem {
+
+    /**
+     * Maximum horizontal distance from the midpoint at which a meeting point is searched.
+     */
+    private static final int SEARCH_RADIUS = 4;
+
+    /**
+     * Vertical offsets tried at every horizontal position, closest first.
+     */
+    private static final int[] VERTICAL_OFFSETS = {0, -1, 1, -2, 2};
+
+    private static final int[][] NEIGHBOURS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    private static final int MAX_CACHED_CHUNKS = 64;
+
+    @In
+    private WorldProvider worldProvider;
+
+    private final Map<Vector3ic, ChunkWalkability> cache = new LinkedHashMap<Vector3ic, ChunkWalkability>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Vector3ic, ChunkWalkability> eldest) {
+            return size() > MAX_CACHED_CHUNKS;
+        }
+    };
+
+    private final Vector3i chunkPosition = new Vector3i();
+
+    /**
+     * Finds a meeting point between two animals.
+     *
+     * @param position1 The position of the first animal.
+     * @param position2 The position of the second animal.
+     * @param target1 Set to the block the first animal should move to.
+     * @param target2 Set to the block the second animal should move to, next to {@code target1}.
+     * @return Whether a meeting point was found. The targets are left unchanged otherwise.
+     */
+    public boolean findRendezvous(Vector3fc position1, Vector3fc position2, Vector3i target1, Vector3i target2) {
+        int midX = (int) Math.floor((position1.x() + position2.x()) / 2);
+        int midY = (int) Math.floor((position1.y() + position2.y()) / 2);
+        int midZ = (int) Math.floor((position1.z() + position2.z()) / 2);
+        for (int radius = 0; radius <= SEARCH_RADIUS; radius++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    if (Math.abs(dx) != radius && Math.abs(dz) != radius) {
+                        // Only the ring at this radius; the inner positions were tried before.
+                        continue;
+                    }
+                    for (int dy : VERTICAL_OFFSETS) {
+                        if (tryMeetingPoint(midX + dx, midY + dy, midZ + dz, target1, target2)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the cached walkability of a chunk once one of its blocks changes.
+     * <p>
+     * The walkability of a block also depends on the blocks above and below it, so a change on the top or bottom layer
+     * of a chunk drops the vertically adjacent chunk as well.
+     */
+    @ReceiveEvent(components = BlockComponent.class)
+    public void onBlockChanged(OnChangedBlock event, EntityRef entityRef) {
+        Vector3ic blockPosition = event.getBlockPosition();
+        for (int dy = -1; dy <= 1; dy++) {
+            cache.remove(toChunkPosition(blockPosition.x(), blockPosition.y() + dy, blockPosition.z()));
+        }
+    }
+
+    private boolean tryMeetingPoint(int x, int y, int z, Vector3i target1, Vector3i target2) {
+        if (!isWalkable(x, y, z)) {
+            return false;
+        }
+        for (int[] neighbour : NEIGHBOURS) {
+            int neighbourX = x + neighbour[0];
+            int neighbourZ = z + neighbour[1];
+            if (isWalkable(neighbourX, y, neighbourZ)) {
+                target1.set(x, y, z);
+                target2.set(neighbourX, y, neighbourZ);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An animal can stand in a block if it and the block above are penetrable and the block below is not.
+     */
+    private boolean isWalkable(int x, int y, int z) {
+        if (!worldProvider.isBlockRelevant(x, y, z)) {
+            return false;
+        }
+        ChunkWalkability chunk = cache.get(toChunkPosition(x, y, z));
+        if (chunk == null) {
+            chunk = new ChunkWalkability();
+            cache.put(new Vector3i(chunkPosition), chunk);
+        }
+        int index = Math.floorMod(x, Chunks.SIZE_X)
+                + Chunks.SIZE_X * (Math.floorMod(y, Chunks.SIZE_Y) + Chunks.SIZE_Y * Math.floorMod(z, Chunks.SIZE_Z));
+        if (chunk.known.get(index)) {
+            return chunk.walkable.get(index);
+        }
+        boolean walkable = worldProvider.getBlock(x, y, z).isPenetrable()
+                && worldProvider.getBlock(x, y + 1, z).isPenetrable()
+                && !worldProvider.getBlock(x, y - 1, z).isPenetrable();
+        chunk.known.set(index);
+        chunk.walkable.set(index, walkable);
+        return walkable;
+    }
+
+    private Vector3i toChunkPosition(int x, int y, int z) {
+        return chunkPosition.set(Math.floorDiv(x, Chunks.SIZE_X), Math.floorDiv(y, Chunks.SIZE_Y),
+                Math.floorDiv(z, Chunks.SIZE_Z));
+    }
+
+    /**
+     * The walkability of the blocks of a chunk which were queried so far.
+     */
+    private static final class ChunkWalkability {
+        private final BitSet known = new BitSet();
+        private final BitSet walkable = new BitSet();
+    }
+}
@@ -0,0 +1,112 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome;
+
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.wildAnimalsGenome.component.PedigreeComponent;
+import org.terasology.wildAnimalsGenome.component.PedigreeTableComponent;
+import org.terasology.wildAnimalsGenome.event.OffspringCreatedEvent;
+import org.terasology.wildAnimalsGenome.pedigree.PedigreeTable;
+
+import java.util.List;
+
+/**
+ * Records the lineage of bred animals in a {@link PedigreeTable}, and answers how related two animals are.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+@Share(PedigreeSystem.class)
+public class PedigreeSystem extends BaseComponentSystem {
+
+    @In
+    private EntityManager entityManager;
+
+    private final PedigreeTable table = new PedigreeTable();
+    private EntityRef tableEntity = EntityRef.NULL;
+
+    @Override
+    public void postBegin() {
+        for (EntityRef entity : entityManager.getEntitiesWith(PedigreeTableComponent.class)) {
+            tableEntity = entity;
+            PedigreeTableComponent tableComponent = entity.getComponent(PedigreeTableComponent.class);
+            table.load(toArray(tableComponent.parents1), toArray(tableComponent.parents2));
+            return;
+        }
+        tableEntity = entityManager.create(new PedigreeTableComponent());
+    }
+
+    @Override
+    public void preSave() {
+        if (!tableEntity.exists()) {
+            return;
+        }
+        PedigreeTableComponent tableComponent = tableEntity.getComponent(PedigreeTableComponent.class);
+        tableComponent.parents1.clear();
+        tableComponent.parents2.clear();
+        for (int id = 0; id < table.size(); id++) {
+            tableComponent.parents1.add(table.getParent1(id));
+            tableComponent.parents2.add(table.getParent2(id));
+        }
+        tableEntity.saveComponent(tableComponent);
+    }
+
+    /**
+     * Adds the offspring to the pedigree, registering its parents as founders if they are not part of it yet.
+     */
+    @ReceiveEvent
+    public void onOffspringBorn(OffspringCreatedEvent event, EntityRef entityRef) {
+        int parent1 = getOrAssignId(event.getOrganism1());
+        int parent2 = getOrAssignId(event.getOrganism2());
+        PedigreeComponent pedigreeComponent = new PedigreeComponent();
+        pedigreeComponent.pedigreeId = table.add(parent1, parent2);
+        event.getOffspring().addOrSaveComponent(pedigreeComponent);
+    }
+
+    /**
+     * @return The coefficient of kinship of two animals, or 0 if either of them has no recorded lineage.
+     */
+    public double getKinship(EntityRef animal1, EntityRef animal2) {
+        PedigreeComponent pedigree1 = animal1.getComponent(PedigreeComponent.class);
+        PedigreeComponent pedigree2 = animal2.getComponent(PedigreeComponent.class);
+        if (pedigree1 == null || pedigree2 == null) {
+            return 0;
+        }
+        return table.getKinship(pedigree1.pedigreeId, pedigree2.pedigreeId);
+    }
+
+    /**
+     * @return The inbreeding coefficient of an animal, or 0 if it has no recorded lineage.
+     */
+    public double getInbreeding(EntityRef animal) {
+        PedigreeComponent pedigreeComponent = animal.getComponent(PedigreeComponent.class);
+        return pedigreeComponent == null ? 0 : table.getInbreeding(pedigreeComponent.pedigreeId);
+    }
+
+    private int getOrAssignId(EntityRef animal) {
+        PedigreeComponent pedigreeComponent = animal.getComponent(PedigreeComponent.class);
+        if (pedigreeComponent != null && table.contains(pedigreeComponent.pedigreeId)) {
+            return pedigreeComponent.pedigreeId;
+        }
+        if (!animal.exists()) {
+            return PedigreeTable.UNKNOWN;
+        }
+        pedigreeComponent = new PedigreeComponent();
+        pedigreeComponent.pedigreeId = table.add(PedigreeTable.UNKNOWN, PedigreeTable.UNKNOWN);
+        animal.addOrSaveComponent(pedigreeComponent);
+        return pedigreeComponent.pedigreeId;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.component;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+
+/**
+ * Holds the heritable traits of an animal, packed according to the {@link TraitSchema} of its species.
+ */
+public class AnimalGenomeComponent implements Component<AnimalGenomeComponent> {
+    /**
+     * The packed genes of the animal.
+     */
+    public long genes;
+
+    @Override
+    public void copyFrom(AnimalGenomeComponent other) {
+        this.genes = other.genes;
+    }
+}
@@ -0,0 +1,55 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.component;
+
+import com.google.common.collect.Lists;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.List;
+
+/**
+ * Describes how the animals created from a prefab breed. It is only read from prefabs, once at startup; animals
+ * without a profile use the defaults below.
+ */
+public class BreedingProfileComponent implements Component<BreedingProfileComponent> {
+    /**
+     * Radius within which the animal looks for a mate.
+     */
+    public float searchRadius = 10f;
+
+    /**
+     * Delay between consecutive searches for a mate, in milliseconds.
+     */
+    public long searchInterval = 1000L;
+
+    /**
+     * Squared distance below which the animal is said to have reached its target mating block.
+     */
+    public float targetReachedDistanceSquared = 1.8f;
+
+    /**
+     * Relative weights of the litter sizes, starting with a single offspring.
+     */
+    public List<Float> litterSizeWeights = Lists.newArrayList(95f, 4.5f, 0.5f);
+
+    /**
+     * The prefab of the offspring, or an empty string to use the prefab of the parents.
+     */
+    public String offspringPrefab = "";
+
+    /**
+     * The names of the heritable {@link org.terasology.wildAnimalsGenome.genetics.Trait traits}, or an empty list for
+     * all of them.
+     */
+    public List<String> heritableTraits = Lists.newArrayList();
+
+    @Override
+    public void copyFrom(BreedingProfileComponent other) {
+        this.searchRadius = other.searchRadius;
+        this.searchInterval = other.searchInterval;
+        this.targetReachedDistanceSquared = other.targetReachedDistanceSquared;
+        this.litterSizeWeights = Lists.newArrayList(other.litterSizeWeights);
+        this.offspringPrefab = other.offspringPrefab;
+        this.heritableTraits = Lists.newArrayList(other.heritableTraits);
+    }
+}
@@ -0,0 +1,40 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.component;
+
+import com.google.common.collect.Lists;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.wildAnimalsGenome.population.DormantPopulation;
+
+import java.util.List;
+
+/**
+ * Persists the {@link DormantPopulation}s with the world, as parallel lists with one entry per population. It is only
+ * written when the world is saved.
+ */
+public class DormantPopulationComponent implements Component<DormantPopulationComponent> {
+    public List<String> species = Lists.newArrayList();
+    public List<String> prefabs = Lists.newArrayList();
+    public List<Long> regions = Lists.newArrayList();
+    public List<Integer> counts = Lists.newArrayList();
+
+    /**
+     * The x, y and z coordinates of the anchor of every population.
+     */
+    public List<Float> anchors = Lists.newArrayList();
+
+    /**
+     * The genomes of the animals of every population, one after the other; each population has as many as its count.
+     */
+    public List<Long> genomes = Lists.newArrayList();
+
+    @Override
+    public void copyFrom(DormantPopulationComponent other) {
+        this.species = Lists.newArrayList(other.species);
+        this.prefabs = Lists.newArrayList(other.prefabs);
+        this.regions = Lists.newArrayList(other.regions);
+        this.counts = Lists.newArrayList(other.counts);
+        this.anchors = Lists.newArrayList(other.anchors);
+        this.genomes = Lists.newArrayList(other.genomes);
+    }
+}
@@ -2,13 +2,14 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.wildAnimalsGenome.component;
 
-import org.joml.Vector3f;
-import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.network.Replicate;
 import org.terasology.gestalt.entitysystem.component.Component;
 
 /**
  * This component allows WildAnimals to mate.
+ * <p>
+ * It only holds the state needed by clients; the state of an ongoing mating is kept in the server-only
+ * {@link MatingStateComponent}.
  */
 public class MatingComponent implements Component<MatingComponent> {
     /**
@@ -23,37 +24,9 @@ public class MatingComponent implements Component<MatingComponent> {
     @Replicate
     public boolean readyToMate = false;
 
-    /**
-     * Whether the animal is already in the process of mating.
-     */
-    @Replicate
-    public boolean inMatingProcess = false;
-
-    /**
-     * Stores the entityRef to its current mate.
-     */
-    @Replicate
-    public EntityRef matingEntity = EntityRef.NULL;
-
-    /**
-     * Stores the target block chosen where mating is to occur.
-     */
-    @Replicate
-    public Vector3f target = null;
-
-    /**
-     * Whether the target mating block has been reached.
-     */
-    @Replicate
-    public boolean reachedTarget = false;
-
     @Override
     public void copyFrom(MatingComponent other) {
         this.matingDisabled = other.matingDisabled;
         this.readyToMate = other.readyToMate;
-        this.inMatingProcess = other.inMatingProcess;
-        this.matingEntity = other.matingEntity;
-        this.target = other.target;
-        this.reachedTarget = other.reachedTarget;
     }
 }
@@ -0,0 +1,35 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.component;
+
+/**
+ * The phases an animal goes through while mating, in order.
+ * <p>
+ * An animal which is not mating has no {@link MatingStateComponent}, so there is no idle phase.
+ */
+public enum MatingPhase {
+    /**
+     * The animal has proposed to a partner and waits for the response.
+     */
+    PROPOSING,
+    /**
+     * Both animals agreed to mate and are moving to their target blocks.
+     */
+    PAIRED,
+    /**
+     * The animal reached its target block and waits for its partner.
+     */
+    TARGET_REACHED,
+    /**
+     * Both animals reached their targets and the offspring is being created.
+     */
+    BREEDING;
+
+    /**
+     * Whether an animal in this phase may move on to the given phase. Phases can only be advanced one at a time;
+     * aborting a mating from any phase is done by removing the {@link MatingStateComponent}.
+     */
+    public boolean canAdvanceTo(MatingPhase next) {
+        return next.ordinal() == ordinal() + 1;
+    }
+}
@@ -0,0 +1,41 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.component;
+
+import org.joml.Vector3f;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+/**
+ * Holds the server-side state of an animal while it is in the process of mating.
+ * <p>
+ * None of its fields are replicated, so the frequent changes during a mating cause no network traffic. Clients only
+ * see the {@link MatingComponent}.
+ * <p>
+ * The component is stored with the animal, but the deadline of its pair is not. A state restored from storage whose pair
+ * is not watched any more is removed when it is activated, and the animal becomes available for mating again.
+ */
+public class MatingStateComponent implements Component<MatingStateComponent> {
+    /**
+     * The current phase of the mating. Only changed through {@link MatingPhase#canAdvanceTo(MatingPhase) valid}
+     * transitions.
+     */
+    public MatingPhase phase = MatingPhase.PROPOSING;
+
+    /**
+     * Stores the entityRef to its current mate.
+     */
+    public EntityRef matingEntity = EntityRef.NULL;
+
+    /**
+     * Stores the target block chosen where mating is to occur.
+     */
+    public Vector3f target = null;
+
+    @Override
+    public void copyFrom(MatingStateComponent other) {
+        this.phase = other.phase;
+        this.matingEntity = other.matingEntity;
+        this.target = other.target;
+    }
+}
@@ -0,0 +1,21 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.component;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.wildAnimalsGenome.pedigree.PedigreeTable;
+
+/**
+ * Links an animal to its entry in the {@link PedigreeTable}.
+ */
+public class PedigreeComponent implements Component<PedigreeComponent> {
+    /**
+     * The id of the animal in the pedigree table.
+     */
+    public int pedigreeId = PedigreeTable.UNKNOWN;
+
+    @Override
+    public void copyFrom(PedigreeComponent other) {
+        this.pedigreeId = other.pedigreeId;
+    }
+}
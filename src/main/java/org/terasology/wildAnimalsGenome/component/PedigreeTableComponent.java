@@ -0,0 +1,30 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.component;
+
+import com.google.common.collect.Lists;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.wildAnimalsGenome.pedigree.PedigreeTable;
+
+import java.util.List;
+
+/**
+ * Persists the {@link PedigreeTable} with the world. It is only written when the world is saved.
+ */
+public class PedigreeTableComponent implements Component<PedigreeTableComponent> {
+    /**
+     * The id of the first parent of every animal, by pedigree id.
+     */
+    public List<Integer> parents1 = Lists.newArrayList();
+
+    /**
+     * The id of the second parent of every animal, by pedigree id.
+     */
+    public List<Integer> parents2 = Lists.newArrayList();
+
+    @Override
+    public void copyFrom(PedigreeTableComponent other) {
+        this.parents1 = Lists.newArrayList(other.parents1);
+        this.parents2 = Lists.newArrayList(other.parents2);
+    }
+}
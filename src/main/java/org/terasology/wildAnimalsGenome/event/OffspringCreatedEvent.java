@@ -6,6 +6,10 @@ import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.network.ServerEvent;
 import org.terasology.gestalt.entitysystem.event.Event;
 
+/**
+ * Sent to the offspring once it has been created with its genes. The parents may already be destroyed or unloaded
+ * by then, since a litter is spawned over several ticks.
+ */
 @ServerEvent
 public class OffspringCreatedEvent implements Event {
     private EntityRef organism1;
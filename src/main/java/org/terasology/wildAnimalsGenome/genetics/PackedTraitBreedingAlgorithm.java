@@ -0,0 +1,34 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.genetics;
+
+import org.terasology.genome.breed.BreedingAlgorithm;
+
+import java.util.SplittableRandom;
+
+/**
+ * Lets Genome breed animals whose genes are the gene strings of a {@link TraitSchema}, with the same crossover and
+ * mutation as {@link TraitSchema#breed}.
+ * <p>
+ * Genome calls this from the main thread only, so a single random number generator is used for all crosses.
+ */
+public final class PackedTraitBreedingAlgorithm implements BreedingAlgorithm {
+    private final TraitSchema schema;
+    private final SplittableRandom random;
+
+    public PackedTraitBreedingAlgorithm(TraitSchema schema, SplittableRandom random) {
+        this.schema = schema;
+        this.random = random;
+    }
+
+    @Override
+    public boolean canCross(String genes1, String genes2) {
+        return schema.isGeneString(genes1) && schema.isGeneString(genes2);
+    }
+
+    @Override
+    public String produceCross(String genes1, String genes2) {
+        long genes = schema.breed(schema.parseGeneString(genes1), schema.parseGeneString(genes2), random);
+        return schema.toGeneString(genes);
+    }
+}
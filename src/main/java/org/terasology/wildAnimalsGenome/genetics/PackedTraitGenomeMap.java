@@ -0,0 +1,29 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.genetics;
+
+import org.terasology.genome.genomeMap.GenomeMap;
+
+/**
+ * Exposes the traits of a {@link TraitSchema} as Genome properties, named by {@link Trait#getPropertyName()}.
+ * Every property is a {@link Float} expressed from the gene string.
+ */
+public final class PackedTraitGenomeMap implements GenomeMap {
+    private final TraitSchema schema;
+
+    public PackedTraitGenomeMap(TraitSchema schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public <T> T getProperty(String property, String genes, Class<T> type) {
+        Trait trait = Trait.forPropertyName(property);
+        if (trait == null || !schema.has(trait)) {
+            throw new IllegalArgumentException("Unknown property: " + property);
+        }
+        if (type != Float.class) {
+            throw new IllegalArgumentException("Property " + property + " is a Float, not a " + type.getSimpleName());
+        }
+        return type.cast(schema.express(schema.parseGeneString(genes), trait));
+    }
+}
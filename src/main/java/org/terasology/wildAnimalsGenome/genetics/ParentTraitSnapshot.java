@@ -0,0 +1,64 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.genetics;
+
+import java.util.SplittableRandom;
+
+/**
+ * An immutable copy of the genes of two mating animals, taken once when mating starts.
+ * <p>
+ * Offspring are computed from this snapshot only, so they do not depend on the parents still being loaded or alive,
+ * and the computation does not touch the entity system and can run on any thread.
+ */
+public final class ParentTraitSnapshot {
+    private final TraitSchema schema;
+    private final long parent1Id;
+    private final long parent2Id;
+    private final long parent1Genes;
+    private final long parent2Genes;
+
+    public ParentTraitSnapshot(TraitSchema schema, long parent1Id, long parent1Genes, long parent2Id, long parent2Genes) {
+        this.schema = schema;
+        this.parent1Id = parent1Id;
+        this.parent1Genes = parent1Genes;
+        this.parent2Id = parent2Id;
+        this.parent2Genes = parent2Genes;
+    }
+
+    /**
+     * Computes the genes of one offspring.
+     *
+     * @param random The source of randomness for crossover and mutation; it must not be shared between threads.
+     * @return The packed genes of the offspring.
+     */
+    public long breedOffspring(SplittableRandom random) {
+        return schema.breed(parent1Genes, parent2Genes, random);
+    }
+
+    /**
+     * @return The value of a trait for the given offspring genes.
+     */
+    public float express(long offspringGenes, Trait trait) {
+        return schema.express(offspringGenes, trait);
+    }
+
+    public TraitSchema getSchema() {
+        return schema;
+    }
+
+    public long getParent1Id() {
+        return parent1Id;
+    }
+
+    public long getParent2Id() {
+        return parent2Id;
+    }
+
+    public long getParent1Genes() {
+        return parent1Genes;
+    }
+
+    public long getParent2Genes() {
+        return parent2Genes;
+    }
+}
@@ -0,0 +1,61 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.genetics;
+
+import org.terasology.genome.GenomeDefinition;
+import org.terasology.genome.GenomeRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The Genome definitions of all breeding species. Each species is registered once, as {@code <prefix><species name>},
+ * with a {@link GenomeDefinition} backed by its {@link TraitSchema}. Animals and their offspring only refer to these
+ * definitions by ID, so the registry grows with the number of species and not with the number of births.
+ */
+public final class SpeciesGenomes {
+    private final String[] genomeIds;
+    private final Map<String, Integer> speciesByGenomeId = new HashMap<>();
+
+    /**
+     * Registers the genome definition of every species.
+     *
+     * @param speciesNames The name of every species, indexed by species id.
+     * @param schemas The trait schema of every species, indexed by species id.
+     * @param random Split into one random number generator per species, for the crosses Genome performs.
+     */
+    public SpeciesGenomes(GenomeRegistry registry, String prefix, String[] speciesNames, TraitSchema[] schemas,
+                          SplittableRandom random) {
+        genomeIds = new String[speciesNames.length];
+        for (int species = 0; species < genomeIds.length; species++) {
+            TraitSchema schema = schemas[species];
+            genomeIds[species] = prefix + speciesNames[species];
+            speciesByGenomeId.put(genomeIds[species], species);
+            registry.registerType(genomeIds[species], new GenomeDefinition(
+                    new PackedTraitBreedingAlgorithm(schema, random.split()), new PackedTraitGenomeMap(schema)));
+        }
+    }
+
+    /**
+     * @return The ID under which the genome definition of the species is registered.
+     */
+    public String getGenomeId(int species) {
+        return genomeIds[species];
+    }
+
+    /**
+     * @return The species registered under the genome ID, or -1 if it is not one of these species.
+     */
+    public int getSpecies(String genomeId) {
+        Integer species = speciesByGenomeId.get(genomeId);
+        return species != null ? species : -1;
+    }
+
+    /**
+     * @return The number of registered species.
+     */
+    public int size() {
+        return genomeIds.length;
+    }
+}
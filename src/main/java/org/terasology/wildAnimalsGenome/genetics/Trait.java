@@ -0,0 +1,45 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.genetics;
+
+/**
+ * The heritable traits of an animal. Which of them a species carries, and how precisely, is defined by its
+ * {@link TraitSchema}.
+ */
+public enum Trait {
+    SPEED("speedMultiplier"),
+    HEALTH("health"),
+    SIZE("size"),
+    FERTILITY("fertility"),
+    TEMPERAMENT("temperament");
+
+    /**
+     * Cached result of {@link #values()}, which copies the array on every call.
+     */
+    static final Trait[] ALL = values();
+
+    private final String propertyName;
+
+    Trait(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * @return The name under which the trait is exposed as a Genome property.
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    /**
+     * @return The trait exposed under the given Genome property name, or null if there is none.
+     */
+    public static Trait forPropertyName(String propertyName) {
+        for (Trait trait : ALL) {
+            if (trait.propertyName.equals(propertyName)) {
+                return trait;
+            }
+        }
+        return null;
+    }
+}
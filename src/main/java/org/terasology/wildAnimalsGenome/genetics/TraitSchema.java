@@ -0,0 +1,273 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.genetics;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Describes how the traits of a species are packed into a single {@code long} genome.
+ * <p>
+ * Every trait occupies a contiguous run of bits holding a quantized value between the minimum and maximum of the trait.
+ * All operations work on the packed representation directly and do not allocate.
+ * A schema is immutable once built with a {@link Builder}, which makes it safe to share between threads.
+ */
+public final class TraitSchema {
+    private static final int MAX_BITS = Long.SIZE;
+    private static final int MAX_TRAIT_BITS = Integer.SIZE;
+    private static final int HEX_DIGIT_BITS = 4;
+
+    /**
+     * Probability that a single random bit of an offspring's genome is flipped.
+     */
+    private static final double MUTATION_PROBABILITY = 0.01;
+
+    private final int[] offsets;
+    private final long[] masks;
+    private final float[] minValues;
+    private final float[] maxValues;
+    private final int totalBits;
+    private final long genomeMask;
+
+    private TraitSchema(Builder builder) {
+        this.offsets = builder.offsets.clone();
+        this.masks = builder.masks.clone();
+        this.minValues = builder.minValues.clone();
+        this.maxValues = builder.maxValues.clone();
+        this.totalBits = builder.totalBits;
+        this.genomeMask = builder.genomeMask;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return A schema carrying every {@link Trait} with 8 bits of precision.
+     */
+    public static TraitSchema createDefault() {
+        return createDefault(EnumSet.allOf(Trait.class));
+    }
+
+    /**
+     * @return A schema carrying the given traits with 8 bits of precision, in declaration order.
+     */
+    public static TraitSchema createDefault(Set<Trait> traits) {
+        Builder builder = builder();
+        for (Trait trait : Trait.ALL) {
+            if (!traits.contains(trait)) {
+                continue;
+            }
+            switch (trait) {
+                case SIZE:
+                    builder.add(trait, 8, 0.75f, 1.25f);
+                    break;
+                case FERTILITY:
+                case TEMPERAMENT:
+                    builder.add(trait, 8, 0f, 1f);
+                    break;
+                default:
+                    builder.add(trait, 8, 0.5f, 1.5f);
+                    break;
+            }
+        }
+        return builder.build();
+    }
+
+    public boolean has(Trait trait) {
+        return offsets[trait.ordinal()] >= 0;
+    }
+
+    /**
+     * @return The number of bits used by all traits of the schema.
+     */
+    public int getTotalBits() {
+        return totalBits;
+    }
+
+    /**
+     * @return A mask of all bits used by the schema.
+     */
+    public long getGenomeMask() {
+        return genomeMask;
+    }
+
+    /**
+     * Computes the value of a trait from the genes. Traits missing from the schema express as 1.
+     */
+    public float express(long genes, Trait trait) {
+        int index = trait.ordinal();
+        if (offsets[index] < 0) {
+            return 1f;
+        }
+        long allele = (genes & masks[index]) >>> offsets[index];
+        long maxAllele = masks[index] >>> offsets[index];
+        return minValues[index] + (maxValues[index] - minValues[index]) * ((float) allele / maxAllele);
+    }
+
+    /**
+     * Computes where the value of a trait lies between its minimum and maximum, from 0 to 1. Traits missing from the
+     * schema express as 0.5.
+     */
+    public float expressNormalized(long genes, Trait trait) {
+        int index = trait.ordinal();
+        if (offsets[index] < 0) {
+            return 0.5f;
+        }
+        long allele = (genes & masks[index]) >>> offsets[index];
+        return (float) allele / (masks[index] >>> offsets[index]);
+    }
+
+    /**
+     * Stores the allele closest to the given value in the genes.
+     *
+     * @return The updated genes.
+     */
+    public long encode(long genes, Trait trait, float value) {
+        int index = trait.ordinal();
+        if (offsets[index] < 0) {
+            return genes;
+        }
+        long maxAllele = masks[index] >>> offsets[index];
+        float range = maxValues[index] - minValues[index];
+        float normalized = range == 0 ? 0 : (value - minValues[index]) / range;
+        long allele = Math.round(Math.max(0f, Math.min(1f, normalized)) * maxAllele);
+        return (genes & ~masks[index]) | (allele << offsets[index]);
+    }
+
+    /**
+     * Produces the genes of an offspring by taking every trait from one of the two parents.
+     *
+     * @param selector Random bits; the parent of each trait is picked by the bit at the trait's ordinal.
+     * @return The genes of the offspring.
+     */
+    public long crossover(long genes1, long genes2, long selector) {
+        long fromSecond = 0;
+        for (int i = 0; i < masks.length; i++) {
+            if ((selector & (1L << i)) != 0) {
+                fromSecond |= masks[i];
+            }
+        }
+        return ((genes1 & ~fromSecond) | (genes2 & fromSecond)) & genomeMask;
+    }
+
+    /**
+     * Computes the genes of one offspring: every trait is taken from one of the parents, and with a small probability
+     * one bit is mutated. A schema without traits always breeds empty genes.
+     *
+     * @param random The source of randomness; it must not be shared between threads.
+     * @return The genes of the offspring.
+     */
+    public long breed(long genes1, long genes2, SplittableRandom random) {
+        long genes = crossover(genes1, genes2, random.nextLong());
+        if (totalBits > 0 && random.nextDouble() < MUTATION_PROBABILITY) {
+            genes = mutate(genes, random.nextInt(totalBits));
+        }
+        return genes;
+    }
+
+    /**
+     * Flips a single bit of the genes.
+     *
+     * @param bit The bit to flip, between 0 and {@link #getTotalBits()}.
+     * @return The mutated genes.
+     */
+    public long mutate(long genes, int bit) {
+        return genes ^ (1L << bit);
+    }
+
+    /**
+     * Formats the genes as the string stored in a Genome {@code GenomeComponent}: one lowercase hexadecimal digit per
+     * four bits of the schema, most significant first.
+     */
+    public String toGeneString(long genes) {
+        char[] digits = new char[getGeneStringLength()];
+        for (int i = digits.length - 1; i >= 0; i--) {
+            digits[i] = Character.forDigit((int) (genes & 0xF), 16);
+            genes >>>= HEX_DIGIT_BITS;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * @return true if the string was produced by {@link #toGeneString(long)} of a schema of the same size.
+     */
+    public boolean isGeneString(String geneString) {
+        if (geneString == null || geneString.length() != getGeneStringLength()) {
+            return false;
+        }
+        for (int i = 0; i < geneString.length(); i++) {
+            if (Character.digit(geneString.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses genes formatted by {@link #toGeneString(long)}.
+     *
+     * @throws IllegalArgumentException If the string is not a gene string of this schema.
+     */
+    public long parseGeneString(String geneString) {
+        if (!isGeneString(geneString)) {
+            throw new IllegalArgumentException("Not a gene string of this schema: " + geneString);
+        }
+        return Long.parseUnsignedLong(geneString, 16) & genomeMask;
+    }
+
+    private int getGeneStringLength() {
+        return Math.max(1, (totalBits + HEX_DIGIT_BITS - 1) / HEX_DIGIT_BITS);
+    }
+
+    /**
+     * Lays out the traits of a schema, one after the other.
+     */
+    public static final class Builder {
+        private final int[] offsets = new int[Trait.ALL.length];
+        private final long[] masks = new long[Trait.ALL.length];
+        private final float[] minValues = new float[Trait.ALL.length];
+        private final float[] maxValues = new float[Trait.ALL.length];
+        private int totalBits;
+        private long genomeMask;
+
+        private Builder() {
+            Arrays.fill(offsets, -1);
+        }
+
+        /**
+         * Appends a trait to the schema.
+         *
+         * @param trait The trait to add.
+         * @param bits The number of bits used to store the trait.
+         * @param minValue The value expressed by the lowest allele.
+         * @param maxValue The value expressed by the highest allele.
+         * @return This builder.
+         */
+        public Builder add(Trait trait, int bits, float minValue, float maxValue) {
+            int index = trait.ordinal();
+            if (offsets[index] >= 0) {
+                throw new IllegalArgumentException("Trait " + trait + " is already part of the schema");
+            }
+            if (bits <= 0 || bits > MAX_TRAIT_BITS || totalBits + bits > MAX_BITS) {
+                throw new IllegalArgumentException("Trait " + trait + " does not fit in the genome: " + bits + " bits");
+            }
+            offsets[index] = totalBits;
+            masks[index] = ((1L << bits) - 1) << totalBits;
+            minValues[index] = minValue;
+            maxValues[index] = maxValue;
+            totalBits += bits;
+            genomeMask |= masks[index];
+            return this;
+        }
+
+        /**
+         * @return A schema with the traits added so far; later additions do not affect it.
+         */
+        public TraitSchema build() {
+            return new TraitSchema(this);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.journal;
+
+/**
+ * The binary layout shared by the {@link BreedingJournalWriter} and {@link BreedingJournalReader}.
+ * <p>
+ * A journal is a directory of segment files named {@code breeding-<index>.journal}. Every segment starts with a header
+ * (magic, version, record size, record count) followed by fixed-size little-endian records:
+ * <pre>
+ * offset size field
+ *      0    8 timestamp (game time in milliseconds)
+ *      8    4 record type ({@link #PAIRING} or {@link #BIRTH})
+ *     12    4 species id
+ *     16    8 id of the first parent
+ *     24    8 id of the second parent
+ *     32    8 id of the offspring, 0 for pairings
+ *     40    8 packed genes of the offspring, 0 for pairings
+ * </pre>
+ * The record count is updated after every record, so a segment which was not closed properly can still be read up to
+ * the last complete record.
+ */
+public final class BreedingJournal {
+    public static final int PAIRING = 1;
+    public static final int BIRTH = 2;
+
+    static final int MAGIC = 0x424A524E;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int COUNT_OFFSET = 12;
+    static final int RECORD_SIZE = 48;
+
+    static final String SEGMENT_PREFIX = "breeding-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private BreedingJournal() {
+    }
+
+    static String segmentName(int index) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return The index of the segment with the given file name, or -1 if it is not the name of a segment.
+     */
+    static int segmentIndex(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        String index = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        if (index.isEmpty() || !index.chars().allMatch(Character::isDigit)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(index);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams the records of a {@link BreedingJournal} in the order they were written, one segment at a time.
+ * <p>
+ * The reader is a cursor: {@link #next()} moves to the next record, whose fields are then available through the
+ * getters, so reading does not allocate per record. Not thread safe.
+ * <pre>
+ * try (BreedingJournalReader reader = new BreedingJournalReader(directory)) {
+ *     while (reader.next()) {
+ *         process(reader.getTimestamp(), reader.getGenes());
+ *     }
+ * }
+ * </pre>
+ */
+public final class BreedingJournalReader implements Closeable {
+    private final List<Path> segments;
+    private int nextSegment;
+    private MappedByteBuffer buffer;
+    private int remainingRecords;
+
+    private long timestamp;
+    private int type;
+    private int species;
+    private long parent1;
+    private long parent2;
+    private long offspring;
+    private long genes;
+
+    public BreedingJournalReader(Path directory) throws IOException {
+        this.segments = listSegments(directory);
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return Whether there was another record.
+     */
+    public boolean next() throws IOException {
+        while (remainingRecords == 0) {
+            if (nextSegment == segments.size()) {
+                return false;
+            }
+            openSegment(segments.get(nextSegment++));
+        }
+        timestamp = buffer.getLong();
+        type = buffer.getInt();
+        species = buffer.getInt();
+        parent1 = buffer.getLong();
+        parent2 = buffer.getLong();
+        offspring = buffer.getLong();
+        genes = buffer.getLong();
+        remainingRecords--;
+        return true;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return {@link BreedingJournal#PAIRING} or {@link BreedingJournal#BIRTH}.
+     */
+    public int getType() {
+        return type;
+    }
+
+    public int getSpecies() {
+        return species;
+    }
+
+    public long getParent1() {
+        return parent1;
+    }
+
+    public long getParent2() {
+        return parent2;
+    }
+
+    public long getOffspring() {
+        return offspring;
+    }
+
+    public long getGenes() {
+        return genes;
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+        remainingRecords = 0;
+        nextSegment = segments.size();
+    }
+
+    /**
+     * @return The segment files of the journal in the given directory, in the order they were written.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> segmentIndex(path) >= 0)
+                    .sorted(Comparator.comparingInt(BreedingJournalReader::segmentIndex))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static int segmentIndex(Path segment) {
+        return BreedingJournal.segmentIndex(segment.getFileName().toString());
+    }
+
+    private void openSegment(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < BreedingJournal.HEADER_SIZE || buffer.getInt() != BreedingJournal.MAGIC) {
+            throw new IOException("Not a breeding journal segment: " + path);
+        }
+        int version = buffer.getInt();
+        int recordSize = buffer.getInt();
+        if (version != BreedingJournal.VERSION || recordSize != BreedingJournal.RECORD_SIZE) {
+            throw new IOException("Unsupported breeding journal segment " + path + ": version " + version);
+        }
+        int count = buffer.getInt();
+        remainingRecords = Math.min(count, buffer.remaining() / BreedingJournal.RECORD_SIZE);
+    }
+}
@@ -0,0 +1,103 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends records to a {@link BreedingJournal} through memory-mapped segments of a fixed number of records.
+ * <p>
+ * Appending only writes to the mapped memory; the operating system flushes it to disk. A new segment is started when
+ * the current one is full, and every writer starts a new segment after the existing ones. Not thread safe.
+ */
+public final class BreedingJournalWriter implements Closeable {
+    private final Path directory;
+    private final int recordsPerSegment;
+
+    private int segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int recordCount;
+
+    /**
+     * @param directory The directory of the journal, which is created if needed.
+     * @param recordsPerSegment The number of records after which a new segment is started.
+     */
+    public BreedingJournalWriter(Path directory, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment <= 0) {
+            throw new IllegalArgumentException("Records per segment must be positive: " + recordsPerSegment);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        Files.createDirectories(directory);
+        // Segments may have been deleted, so the count of the remaining ones could be the index of an existing segment.
+        List<Path> segments = BreedingJournalReader.listSegments(directory);
+        if (!segments.isEmpty()) {
+            segmentIndex = BreedingJournalReader.segmentIndex(segments.get(segments.size() - 1)) + 1;
+        }
+        openSegment();
+    }
+
+    public void append(long timestamp, int type, int species, long parent1, long parent2, long offspring, long genes)
+            throws IOException {
+        if (recordCount == recordsPerSegment) {
+            closeSegment();
+            segmentIndex++;
+            openSegment();
+        }
+        buffer.putLong(timestamp)
+                .putInt(type)
+                .putInt(species)
+                .putLong(parent1)
+                .putLong(parent2)
+                .putLong(offspring)
+                .putLong(genes);
+        recordCount++;
+        buffer.putInt(BreedingJournal.COUNT_OFFSET, recordCount);
+    }
+
+    /**
+     * Forces the records written so far to disk.
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(BreedingJournal.segmentName(segmentIndex));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = BreedingJournal.HEADER_SIZE + (long) recordsPerSegment * BreedingJournal.RECORD_SIZE;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(BreedingJournal.MAGIC)
+                .putInt(BreedingJournal.VERSION)
+                .putInt(BreedingJournal.RECORD_SIZE)
+                .putInt(0);
+        recordCount = 0;
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        buffer.force();
+        buffer = null;
+        // The unused tail of the segment is not truncated, as some platforms refuse to shrink a file that is still mapped.
+        channel.close();
+        channel = null;
+    }
+}
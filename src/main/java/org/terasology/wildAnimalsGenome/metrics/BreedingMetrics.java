@@ -0,0 +1,193 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.metrics;
+
+/**
+ * Counters and gauges describing the work done by the breeding systems.
+ * <p>
+ * Recording is a no-op while the metrics are disabled, and timers only read the clock while enabled.
+ * All methods are expected to be called from the main thread.
+ */
+public final class BreedingMetrics {
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private boolean enabled;
+
+    private long pairingWaves;
+    private long searchesRun;
+    private long searchBudgetExhausted;
+    private long candidatesScanned;
+    private long proposalsSent;
+    private long proposalsAccepted;
+    private long proposalsRejected;
+    private long births;
+    private long pairsExpired;
+    private long updateCalls;
+    private long updateNanos;
+    private long searchNanos;
+
+    private int pairsInFlight;
+    private int pendingOffspring;
+    private int traitSchemas;
+    private int dormantAnimals;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return A timestamp to pass to one of the timed recording methods, or 0 if the metrics are disabled.
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void recordPairingWave() {
+        if (enabled) {
+            pairingWaves++;
+        }
+    }
+
+    /**
+     * Records a search for nearby animals.
+     *
+     * @param startTime The value returned by {@link #startTimer()} before the search; the search is not recorded if
+     *     the timer was started while the metrics were disabled.
+     * @param scanned The number of candidates whose distance was checked.
+     */
+    public void recordSearch(long startTime, int scanned) {
+        if (isTimed(startTime)) {
+            searchesRun++;
+            candidatesScanned += scanned;
+            searchNanos += System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * Records a tick in which the mate search stopped early because it used up its time budget.
+     */
+    public void recordSearchBudgetExhausted() {
+        if (enabled) {
+            searchBudgetExhausted++;
+        }
+    }
+
+    public void recordProposalSent() {
+        if (enabled) {
+            proposalsSent++;
+        }
+    }
+
+    public void recordProposalResponse(boolean accepted) {
+        if (enabled) {
+            if (accepted) {
+                proposalsAccepted++;
+            } else {
+                proposalsRejected++;
+            }
+        }
+    }
+
+    public void recordBirth() {
+        if (enabled) {
+            births++;
+        }
+    }
+
+    /**
+     * Records a mating pair which was aborted because it stayed in one phase for too long.
+     */
+    public void recordPairExpired() {
+        if (enabled) {
+            pairsExpired++;
+        }
+    }
+
+    /**
+     * @param startTime The value returned by {@link #startTimer()} at the start of the update; the update is not
+     *     recorded if the timer was started while the metrics were disabled.
+     */
+    public void recordUpdate(long startTime) {
+        if (isTimed(startTime)) {
+            updateCalls++;
+            updateNanos += System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * Whether a timer started at the given time can be recorded. A timer started while the metrics were disabled
+     * returns 0, and would otherwise record the whole uptime if the metrics were enabled before it ended.
+     */
+    private boolean isTimed(long startTime) {
+        return enabled && startTime != 0;
+    }
+
+    public void setPairsInFlight(int pairsInFlight) {
+        this.pairsInFlight = pairsInFlight;
+    }
+
+    public void setPendingOffspring(int pendingOffspring) {
+        this.pendingOffspring = pendingOffspring;
+    }
+
+    public void setTraitSchemas(int traitSchemas) {
+        this.traitSchemas = traitSchemas;
+    }
+
+    public void setDormantAnimals(int dormantAnimals) {
+        this.dormantAnimals = dormantAnimals;
+    }
+
+    public void reset() {
+        pairingWaves = 0;
+        searchesRun = 0;
+        searchBudgetExhausted = 0;
+        candidatesScanned = 0;
+        proposalsSent = 0;
+        proposalsAccepted = 0;
+        proposalsRejected = 0;
+        births = 0;
+        pairsExpired = 0;
+        updateCalls = 0;
+        updateNanos = 0;
+        searchNanos = 0;
+    }
+
+    public static String csvHeader() {
+        return "timestamp,pairingWaves,searchesRun,searchBudgetExhausted,candidatesScanned,proposalsSent,"
+                + "proposalsAccepted,proposalsRejected,births,pairsExpired,pairsInFlight,pendingOffspring,traitSchemas,"
+                + "dormantAnimals,updateCalls,updateMicros,searchMicros";
+    }
+
+    public String toCsvRow(long timestamp) {
+        return timestamp + "," + pairingWaves + "," + searchesRun + "," + searchBudgetExhausted + "," + candidatesScanned
+                + "," + proposalsSent + "," + proposalsAccepted + "," + proposalsRejected + "," + births + ","
+                + pairsExpired + "," + pairsInFlight + "," + pendingOffspring + "," + traitSchemas + ","
+                + dormantAnimals + "," + updateCalls + "," + updateNanos / NANOS_PER_MICRO + ","
+                + searchNanos / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public String toString() {
+        return "Breeding metrics" + (enabled ? "" : " (disabled)") + "\n"
+                + "  pairing waves:       " + pairingWaves + "\n"
+                + "  searches run:        " + searchesRun + "\n"
+                + "  budget exhausted:    " + searchBudgetExhausted + " ticks\n"
+                + "  candidates scanned:  " + candidatesScanned + "\n"
+                + "  proposals sent:      " + proposalsSent + "\n"
+                + "  proposals accepted:  " + proposalsAccepted + "\n"
+                + "  proposals rejected:  " + proposalsRejected + "\n"
+                + "  births:              " + births + "\n"
+                + "  pairs expired:       " + pairsExpired + "\n"
+                + "  pairs in flight:     " + pairsInFlight + "\n"
+                + "  pending offspring:   " + pendingOffspring + "\n"
+                + "  trait schemas:       " + traitSchemas + "\n"
+                + "  dormant animals:     " + dormantAnimals + "\n"
+                + "  update() time:       " + updateNanos / NANOS_PER_MICRO + " us over " + updateCalls + " calls\n"
+                + "  search time:         " + searchNanos / NANOS_PER_MICRO + " us";
+    }
+}
@@ -0,0 +1,143 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures how long mating pairs spend in each phase of their lifecycle, and records the durations in one
+ * {@link LatencyHistogram} per phase.
+ * <p>
+ * A phase is started and ended with the same key: the entity id of the animal for {@link Phase#ACTIVATION_TO_PROPOSAL},
+ * and {@link #pairKey(long, long)} for the other phases. The number of phases being measured at once is capped, so
+ * abandoned pairs cannot grow the tracer without bound. Like {@link BreedingMetrics}, it does nothing while disabled.
+ */
+public final class PairLifecycleTracer {
+    private static final int MAX_OPEN_PHASES = 4096;
+
+    public enum Phase {
+        ACTIVATION_TO_PROPOSAL,
+        PROPOSAL_TO_ACCEPTANCE,
+        ACCEPTANCE_TO_TARGET_REACHED,
+        TARGET_REACHED_TO_BREED
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final Map<Long, Long>[] startTimes;
+
+    private boolean enabled;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PairLifecycleTracer() {
+        startTimes = new Map[PHASES.length];
+        for (int i = 0; i < PHASES.length; i++) {
+            histograms[i] = new LatencyHistogram();
+            startTimes[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Combines the ids of both animals, the smaller one in the upper half, so that the key does not depend on their
+     * order and two pairs sharing an animal get different keys. Entity ids are assumed to fit in 32 bits; the upper
+     * bits of larger ids are dropped.
+     *
+     * @return The key identifying the pair formed by two animals.
+     */
+    public static long pairKey(long animalId1, long animalId2) {
+        long low = Math.min(animalId1, animalId2);
+        long high = Math.max(animalId1, animalId2);
+        return (low << Integer.SIZE) | (high & 0xFFFFFFFFL);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            for (Map<Long, Long> phaseStartTimes : startTimes) {
+                phaseStartTimes.clear();
+            }
+        }
+    }
+
+    public void start(Phase phase, long key, long time) {
+        if (enabled) {
+            Map<Long, Long> phaseStartTimes = startTimes[phase.ordinal()];
+            if (phaseStartTimes.size() < MAX_OPEN_PHASES || phaseStartTimes.containsKey(key)) {
+                phaseStartTimes.put(key, time);
+            }
+        }
+    }
+
+    /**
+     * Records the duration of a phase if it was started for the given key.
+     */
+    public void end(Phase phase, long key, long time) {
+        if (enabled) {
+            Long startTime = startTimes[phase.ordinal()].remove(key);
+            if (startTime != null) {
+                histograms[phase.ordinal()].record(time - startTime);
+            }
+        }
+    }
+
+    /**
+     * Stops measuring a phase without recording it, e.g. when a proposal is rejected.
+     */
+    public void cancel(Phase phase, long key) {
+        if (enabled) {
+            startTimes[phase.ordinal()].remove(key);
+        }
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public void reset() {
+        for (int i = 0; i < PHASES.length; i++) {
+            histograms[i].reset();
+            startTimes[i].clear();
+        }
+    }
+
+    /**
+     * Writes the non-empty buckets of every histogram as CSV rows.
+     */
+    public void exportCsv(Writer writer) throws IOException {
+        writer.write("phase,lowerBoundMs,count\n");
+        for (Phase phase : PHASES) {
+            LatencyHistogram histogram = histograms[phase.ordinal()];
+            for (int bucket = 0; bucket < histogram.getNumberOfBuckets(); bucket++) {
+                long count = histogram.getBucketCount(bucket);
+                if (count > 0) {
+                    writer.write(phase + "," + LatencyHistogram.getBucketLowerBound(bucket) + "," + count + "\n");
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Mating pair latencies in ms")
+                .append(enabled ? "" : " (disabled)");
+        for (Phase phase : PHASES) {
+            LatencyHistogram histogram = histograms[phase.ordinal()];
+            builder.append("\n  ").append(phase)
+                    .append(": count=").append(histogram.getCount())
+                    .append(" mean=").append(Math.round(histogram.getMean()))
+                    .append(" p50=").append(histogram.getPercentile(50))
+                    .append(" p90=").append(histogram.getPercentile(90))
+                    .append(" p99=").append(histogram.getPercentile(99))
+                    .append(" max=").append(histogram.getMax());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,134 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.pairing;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Keeps the k highest scoring candidates offered to it, in a binary min-heap over a primitive score array.
+ * <p>
+ * Offering a candidate which does not beat the worst kept one is a single comparison, and the heap never grows, so a
+ * search over any number of candidates does not allocate. Not thread safe; meant to be reused across searches.
+ */
+public final class CandidateHeap<T> {
+    private final double[] scores;
+    private final Object[] candidates;
+    private int size;
+
+    public CandidateHeap(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        scores = new double[capacity];
+        candidates = new Object[capacity];
+    }
+
+    /**
+     * Keeps the candidate if the heap is not full or its score beats the lowest kept score.
+     */
+    public void offer(T candidate, double score) {
+        if (size < scores.length) {
+            scores[size] = score;
+            candidates[size] = candidate;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            scores[0] = score;
+            candidates[0] = candidate;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The kept candidate with the highest score, or null if the heap is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T best() {
+        if (size == 0) {
+            return null;
+        }
+        int best = 0;
+        for (int i = 1; i < size; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        return (T) candidates[best];
+    }
+
+    /**
+     * Picks one of the kept candidates with a probability proportional to its score, or the best one if no score is
+     * positive.
+     *
+     * @return The chosen candidate, or null if the heap is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T pickWeighted(SplittableRandom random) {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += Math.max(scores[i], 0);
+        }
+        if (total <= 0) {
+            return best();
+        }
+        double threshold = random.nextDouble() * total;
+        for (int i = 0; i < size; i++) {
+            threshold -= Math.max(scores[i], 0);
+            if (threshold < 0) {
+                return (T) candidates[i];
+            }
+        }
+        return best();
+    }
+
+    /**
+     * Empties the heap, releasing the references to the candidates.
+     */
+    public void clear() {
+        Arrays.fill(candidates, 0, size, null);
+        size = 0;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[index] <= scores[smallest]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        Object candidate = candidates[i];
+        candidates[i] = candidates[j];
+        candidates[j] = candidate;
+    }
+}
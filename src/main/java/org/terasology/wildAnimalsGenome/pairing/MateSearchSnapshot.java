@@ -0,0 +1,189 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.pairing;
+
+import org.joml.Vector3fc;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A primitive copy of the animals available for mating, taken on the main thread, from which a conflict-free set of
+ * pairs can be computed on other threads.
+ * <p>
+ * The snapshot is filled with {@link #add}, then {@link #computePartners} may be called from any single thread. The
+ * nearest-candidate search runs as a parallel stream, in the {@link java.util.concurrent.ForkJoinPool} the call is made
+ * from, if any.
+ * The entity references are only carried along so that the main thread can map the result back; they are never
+ * dereferenced by the computation.
+ */
+public final class MateSearchSnapshot {
+    /**
+     * Maximum number of animals in a snapshot; indices are packed next to the cell keys when sorting.
+     */
+    public static final int MAX_ANIMALS = 1 << 21;
+
+    private static final int INDEX_BITS = 21;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int AXIS_BITS = 14;
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+    private static final int NO_PARTNER = -1;
+
+    private final float cellSize;
+    private EntityRef[] animals;
+    private float[] xs;
+    private float[] ys;
+    private float[] zs;
+    private int[] species;
+    private int size;
+
+    private long[] sortedCells;
+    private int[] sortedIndices;
+
+    public MateSearchSnapshot(int expectedSize, float cellSize) {
+        int capacity = Math.max(expectedSize, 16);
+        this.cellSize = cellSize;
+        this.animals = new EntityRef[capacity];
+        this.xs = new float[capacity];
+        this.ys = new float[capacity];
+        this.zs = new float[capacity];
+        this.species = new int[capacity];
+    }
+
+    /**
+     * Adds an animal which is available for mating.
+     *
+     * @return false if the snapshot is full.
+     */
+    public boolean add(EntityRef animal, Vector3fc position, int speciesId) {
+        if (size == MAX_ANIMALS) {
+            return false;
+        }
+        if (size == animals.length) {
+            int capacity = Math.min(size * 2, MAX_ANIMALS);
+            animals = Arrays.copyOf(animals, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            zs = Arrays.copyOf(zs, capacity);
+            species = Arrays.copyOf(species, capacity);
+        }
+        animals[size] = animal;
+        xs[size] = position.x();
+        ys[size] = position.y();
+        zs[size] = position.z();
+        species[size] = speciesId;
+        size++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public EntityRef getAnimal(int index) {
+        return animals[index];
+    }
+
+    /**
+     * Pairs every animal with at most one other animal of the same species within the radius.
+     * <p>
+     * Every animal first looks up its nearest candidate, in parallel. The candidate links are then accepted from the
+     * shortest to the longest, skipping animals which already have a partner.
+     *
+     * @return For every animal, the index of its partner, or -1 if it was not paired.
+     */
+    public int[] computePartners(float radius) {
+        indexCells();
+        int[] nearest = new int[size];
+        float[] nearestDistances = new float[size];
+        float radiusSquared = radius * radius;
+        IntStream.range(0, size).parallel().forEach(i -> findNearest(i, radius, radiusSquared, nearest, nearestDistances));
+
+        // Sort the candidate links by distance; the float bits of a non-negative distance sort like the distance itself.
+        long[] links = new long[size];
+        int linkCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (nearest[i] != NO_PARTNER) {
+                links[linkCount++] = ((long) Float.floatToIntBits(nearestDistances[i]) << INDEX_BITS) | i;
+            }
+        }
+        Arrays.sort(links, 0, linkCount);
+
+        int[] partners = new int[size];
+        Arrays.fill(partners, NO_PARTNER);
+        for (int l = 0; l < linkCount; l++) {
+            int animal = (int) (links[l] & INDEX_MASK);
+            int candidate = nearest[animal];
+            if (partners[animal] == NO_PARTNER && partners[candidate] == NO_PARTNER) {
+                partners[animal] = candidate;
+                partners[candidate] = animal;
+            }
+        }
+        return partners;
+    }
+
+    private void indexCells() {
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = (cellKey(cell(xs[i]), cell(ys[i]), cell(zs[i])) << INDEX_BITS) | i;
+        }
+        Arrays.parallelSort(packed);
+        sortedCells = new long[size];
+        sortedIndices = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedCells[i] = packed[i] >>> INDEX_BITS;
+            sortedIndices[i] = (int) (packed[i] & INDEX_MASK);
+        }
+    }
+
+    private void findNearest(int animal, float radius, float radiusSquared, int[] nearest, float[] nearestDistances) {
+        float x = xs[animal];
+        float y = ys[animal];
+        float z = zs[animal];
+        int best = NO_PARTNER;
+        float bestDistance = radiusSquared;
+        for (int cx = cell(x - radius); cx <= cell(x + radius); cx++) {
+            for (int cy = cell(y - radius); cy <= cell(y + radius); cy++) {
+                for (int cz = cell(z - radius); cz <= cell(z + radius); cz++) {
+                    long key = cellKey(cx, cy, cz);
+                    int slot = Arrays.binarySearch(sortedCells, key);
+                    if (slot < 0) {
+                        continue;
+                    }
+                    while (slot > 0 && sortedCells[slot - 1] == key) {
+                        slot--;
+                    }
+                    for (; slot < size && sortedCells[slot] == key; slot++) {
+                        int candidate = sortedIndices[slot];
+                        if (candidate == animal || species[candidate] != species[animal]) {
+                            continue;
+                        }
+                        float dx = xs[candidate] - x;
+                        float dy = ys[candidate] - y;
+                        float dz = zs[candidate] - z;
+                        float distance = dx * dx + dy * dy + dz * dz;
+                        if (distance <= bestDistance) {
+                            bestDistance = distance;
+                            best = candidate;
+                        }
+                    }
+                }
+            }
+        }
+        nearest[animal] = best;
+        nearestDistances[animal] = bestDistance;
+    }
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Packs a cell position into 42 bits. Cells far apart may share a key, which only adds candidates that then fail the
+     * distance check.
+     */
+    private static long cellKey(int x, int y, int z) {
+        return ((x & AXIS_MASK) << (2 * AXIS_BITS)) | ((y & AXIS_MASK) << AXIS_BITS) | (z & AXIS_MASK);
+    }
+}
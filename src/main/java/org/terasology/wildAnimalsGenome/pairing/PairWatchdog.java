@@ -0,0 +1,112 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.pairing;
+
+import org.terasology.wildAnimalsGenome.util.LongObjectHashMap;
+import org.terasology.wildAnimalsGenome.util.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps one deadline per pair in the mating process, keyed by the pair key of both animals, and finds the mating
+ * states which no pair is watching.
+ * <p>
+ * The deadlines only live in memory. A mating state restored from storage, after a world reload or when its chunk is
+ * loaded again after its pair expired, therefore has no deadline. Such states are queued with
+ * {@link #checkRestored(long, Object)} when they are activated, and reported by {@link #drainUnwatched(List)} unless a
+ * pair watches them by then.
+ */
+public final class PairWatchdog<T> {
+    private final TimingWheel<Watch<T>> wheel;
+    private final LongObjectHashMap<TimingWheel.Timeout<Watch<T>>> watches = new LongObjectHashMap<>();
+    private final List<Watch<T>> expired = new ArrayList<>();
+    private final List<Watch<T>> restored = new ArrayList<>();
+
+    /**
+     * @param slotCount The number of slots of the timing wheel, which must be a power of two.
+     * @param tickDuration The resolution of the deadlines.
+     * @param startTime The current time.
+     */
+    public PairWatchdog(int slotCount, long tickDuration, long startTime) {
+        wheel = new TimingWheel<>(slotCount, tickDuration, startTime);
+    }
+
+    /**
+     * Sets the deadline of a pair, replacing its previous one.
+     */
+    public void watch(long pairKey, T pair, long deadline) {
+        unwatch(pairKey);
+        watches.put(pairKey, wheel.schedule(new Watch<>(pairKey, pair), deadline));
+    }
+
+    public void unwatch(long pairKey) {
+        TimingWheel.Timeout<Watch<T>> timeout = watches.remove(pairKey);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    public boolean isWatched(long pairKey) {
+        return watches.containsKey(pairKey);
+    }
+
+    /**
+     * @return The number of watched pairs.
+     */
+    public int size() {
+        return watches.size();
+    }
+
+    /**
+     * Removes the pairs whose deadline passed and adds them to {@code result}.
+     *
+     * @return The number of expired pairs.
+     */
+    public int expire(long now, List<? super T> result) {
+        int count = wheel.expire(now, expired);
+        for (int i = 0; i < count; i++) {
+            Watch<T> watch = expired.get(i);
+            watches.remove(watch.pairKey);
+            result.add(watch.item);
+        }
+        expired.clear();
+        return count;
+    }
+
+    /**
+     * Queues the activated mating state of an animal, to be checked by the next {@link #drainUnwatched(List)}.
+     */
+    public void checkRestored(long pairKey, T animal) {
+        restored.add(new Watch<>(pairKey, animal));
+    }
+
+    /**
+     * Adds every animal queued by {@link #checkRestored(long, Object)} whose pair is not watched to {@code result}, and
+     * clears the queue.
+     *
+     * @return The number of unwatched animals.
+     */
+    public int drainUnwatched(List<? super T> result) {
+        int count = 0;
+        for (int i = 0; i < restored.size(); i++) {
+            Watch<T> check = restored.get(i);
+            if (!watches.containsKey(check.pairKey)) {
+                result.add(check.item);
+                count++;
+            }
+        }
+        restored.clear();
+        return count;
+    }
+
+    private static final class Watch<T> {
+        private final long pairKey;
+        private final T item;
+
+        private Watch(long pairKey, T item) {
+            this.pairKey = pairKey;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.pedigree;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores the parents of every bred animal in primitive arrays, indexed by a dense pedigree id.
+ * <p>
+ * Ids are assigned in birth order, so the parents of an animal always have smaller ids than the animal itself.
+ * Founders (animals with unknown parents) have {@link #UNKNOWN} as parents.
+ */
+public final class PedigreeTable {
+    public static final int UNKNOWN = -1;
+
+    private static final int MAX_CACHED_KINSHIPS = 1 << 16;
+
+    private int[] parents1 = new int[64];
+    private int[] parents2 = new int[64];
+    private int size;
+
+    /**
+     * Kinship coefficients by pair of ids, evicting the least recently used entries.
+     */
+    private final Map<Long, Double> kinshipCache = new LinkedHashMap<Long, Double>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+            return size() > MAX_CACHED_KINSHIPS;
+        }
+    };
+
+    /**
+     * Adds an animal to the table.
+     *
+     * @param parent1 The id of the first parent, or {@link #UNKNOWN}.
+     * @param parent2 The id of the second parent, or {@link #UNKNOWN}.
+     * @return The id of the new animal.
+     */
+    public int add(int parent1, int parent2) {
+        if (size == parents1.length) {
+            parents1 = Arrays.copyOf(parents1, size * 2);
+            parents2 = Arrays.copyOf(parents2, size * 2);
+        }
+        parents1[size] = parent1;
+        parents2[size] = parent2;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < size;
+    }
+
+    public int getParent1(int id) {
+        return parents1[id];
+    }
+
+    public int getParent2(int id) {
+        return parents2[id];
+    }
+
+    /**
+     * Computes Wright's coefficient of kinship: the probability that two alleles, one drawn at random from each animal,
+     * are identical by descent.
+     */
+    public double getKinship(int id1, int id2) {
+        if (!contains(id1) || !contains(id2)) {
+            return 0;
+        }
+        if (id1 == id2) {
+            return 0.5 * (1 + getKinship(parents1[id1], parents2[id1]));
+        }
+        // Recurse through the parents of the younger animal, which cannot be an ancestor of the older one.
+        int younger = Math.max(id1, id2);
+        int older = Math.min(id1, id2);
+        long key = ((long) younger << Integer.SIZE) | older;
+        Double cached = kinshipCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        double kinship = 0.5 * (getKinship(parents1[younger], older) + getKinship(parents2[younger], older));
+        kinshipCache.put(key, kinship);
+        return kinship;
+    }
+
+    /**
+     * @return The inbreeding coefficient of an animal, which is the kinship of its parents.
+     */
+    public double getInbreeding(int id) {
+        return contains(id) ? getKinship(parents1[id], parents2[id]) : 0;
+    }
+
+    /**
+     * Replaces the content of the table with the given parents, e.g. when loading it.
+     */
+    public void load(int[] loadedParents1, int[] loadedParents2) {
+        size = Math.min(loadedParents1.length, loadedParents2.length);
+        parents1 = Arrays.copyOf(loadedParents1, Math.max(size, 64));
+        parents2 = Arrays.copyOf(loadedParents2, Math.max(size, 64));
+        kinshipCache.clear();
+    }
+}
@@ -0,0 +1,175 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.population;
+
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The animals of one species in a region nobody is near, kept as an array of their genomes instead of as entities.
+ * <p>
+ * The population is advanced with a logistic birth/death step. Every newborn is bred from two random animals of the
+ * population with {@link TraitSchema#breed}, as in the mating process, so traits which belong together stay together;
+ * deaths remove random animals.
+ */
+public final class DormantPopulation {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final String species;
+    private final String prefab;
+    private final long region;
+    private final float[] anchor = new float[3];
+    private long[] genomes = new long[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * @param species The species of the animals.
+     * @param prefab The prefab from which the animals are recreated.
+     * @param region The key of the region the animals live in.
+     */
+    public DormantPopulation(String species, String prefab, long region) {
+        this.species = species;
+        this.prefab = prefab;
+        this.region = region;
+    }
+
+    /**
+     * Adds an animal to the population. The position of the first animal is kept as the point around which animals are
+     * recreated.
+     */
+    public void add(long genes, float x, float y, float z) {
+        if (count == 0) {
+            anchor[0] = x;
+            anchor[1] = y;
+            anchor[2] = z;
+        }
+        addGenes(genes);
+    }
+
+    /**
+     * Advances the population by one step.
+     *
+     * @param birthRate The expected number of births per animal and step, when the population is small.
+     * @param deathRate The expected number of deaths per animal and step.
+     * @param capacity The population at which births stop.
+     * @param schema The traits of the species, with which the newborns are bred.
+     * @return The change in the number of animals.
+     */
+    public int step(SplittableRandom random, double birthRate, double deathRate, int capacity, TraitSchema schema) {
+        int initialCount = count;
+        if (count >= 2) {
+            double crowding = Math.max(0, 1 - (double) count / capacity);
+            int births = roundRandomly(random, birthRate * count * crowding);
+            for (int i = 0; i < births; i++) {
+                // Parents are drawn from the animals alive at the start of the step.
+                int parent1 = random.nextInt(initialCount);
+                int parent2 = random.nextInt(initialCount - 1);
+                if (parent2 >= parent1) {
+                    parent2++;
+                }
+                addGenes(schema.breed(genomes[parent1], genomes[parent2], random));
+            }
+        }
+        int deaths = Math.min(roundRandomly(random, deathRate * initialCount), count);
+        for (int i = 0; i < deaths; i++) {
+            removeAt(random.nextInt(count));
+        }
+        return count - initialCount;
+    }
+
+    /**
+     * Removes a random animal, e.g. because it is recreated as an entity.
+     *
+     * @return The genome of the removed animal.
+     * @throws IllegalStateException If the population is empty.
+     */
+    public long removeRandom(SplittableRandom random) {
+        if (count == 0) {
+            throw new IllegalStateException("The population is empty");
+        }
+        return removeAt(random.nextInt(count));
+    }
+
+    /**
+     * Removes every animal.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    public String getSpecies() {
+        return species;
+    }
+
+    public String getPrefab() {
+        return prefab;
+    }
+
+    public long getRegion() {
+        return region;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public float getAnchorX() {
+        return anchor[0];
+    }
+
+    public float getAnchorY() {
+        return anchor[1];
+    }
+
+    public float getAnchorZ() {
+        return anchor[2];
+    }
+
+    /**
+     * @param index The index of the animal, between 0 and {@link #getCount()}. Indices change when animals are removed.
+     * @return The genome of the animal.
+     */
+    public long getGenes(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " of a population of " + count);
+        }
+        return genomes[index];
+    }
+
+    /**
+     * Restores a population which was saved with the world, replacing its animals.
+     */
+    public void load(float anchorX, float anchorY, float anchorZ, long[] savedGenomes) {
+        anchor[0] = anchorX;
+        anchor[1] = anchorY;
+        anchor[2] = anchorZ;
+        genomes = Arrays.copyOf(savedGenomes, Math.max(savedGenomes.length, INITIAL_CAPACITY));
+        count = savedGenomes.length;
+    }
+
+    private void addGenes(long genes) {
+        if (count == genomes.length) {
+            genomes = Arrays.copyOf(genomes, 2 * count);
+        }
+        genomes[count++] = genes;
+    }
+
+    /**
+     * Removes an animal by moving the last one into its slot, since the order of the animals is irrelevant.
+     */
+    private long removeAt(int index) {
+        long removed = genomes[index];
+        genomes[index] = genomes[--count];
+        return removed;
+    }
+
+    /**
+     * Rounds up with a probability equal to the fractional part, so that the expected value is preserved.
+     */
+    private static int roundRandomly(SplittableRandom random, double value) {
+        int floor = (int) Math.floor(value);
+        return random.nextDouble() < value - floor ? floor + 1 : floor;
+    }
+}
@@ -0,0 +1,83 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * An immutable weighted distribution over int values, sampled in constant time with Vose's alias method.
+ * Unlike {@link RandomCollection}, it does not box its values and does not own a random number generator,
+ * so a single instance can be built once and shared.
+ */
+public final class IntAliasSampler {
+    private final int[] values;
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    /**
+     * @param weights The relative weight of each value; non-positive weights are never drawn.
+     * @param values The values to draw from, in the same order as the weights.
+     */
+    public IntAliasSampler(double[] weights, int[] values) {
+        if (weights.length != values.length || weights.length == 0) {
+            throw new IllegalArgumentException("Expected as many weights as values, and at least one of each");
+        }
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            total += Math.max(weight, 0);
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one weight must be positive: " + Arrays.toString(weights));
+        }
+
+        this.values = Arrays.copyOf(values, n);
+        this.probabilities = new double[n];
+        this.aliases = new int[n];
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = Math.max(weights[i], 0) * n / total;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left only differs from 1 by rounding errors.
+        while (largeCount > 0) {
+            probabilities[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probabilities[small[--smallCount]] = 1;
+        }
+    }
+
+    /**
+     * Draws a value.
+     *
+     * @param random The random number generator to draw with.
+     * @return One of the values, with a probability proportional to its weight.
+     */
+    public int next(SplittableRandom random) {
+        int column = random.nextInt(values.length);
+        return random.nextDouble() < probabilities[column] ? values[column] : values[aliases[column]];
+    }
+}
@@ -0,0 +1,142 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive {@code long} keys to objects, with open addressing and linear probing.
+ * Unlike a {@code Map<Long, V>}, lookups and updates do not box the key, so they do not allocate.
+ * <p>
+ * Null values are not supported; a null slot marks an empty slot.
+ */
+public class LongObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private V[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public V get(long key) {
+        int slot = findSlot(key);
+        return slot >= 0 ? values[slot] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return The previous value of the key, or null if there was none.
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int slot = homeSlot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        // Keep the table at most half full, so that probe sequences stay short.
+        if (2 * size > values.length) {
+            rehash(2 * values.length);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the key, shifting the entries probed after it back so that no tombstones are needed.
+     *
+     * @return The removed value, or null if the key was not present.
+     */
+    public V remove(long key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V removed = values[slot];
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = homeSlot(keys[next]);
+            // The entry may fill the gap only if the gap lies between its home slot and its current slot.
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private int findSlot(long key) {
+        int slot = homeSlot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int homeSlot(long key) {
+        long hash = key * HASH_MULTIPLIER;
+        return (int) (hash ^ (hash >>> Integer.SIZE)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = homeSlot(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = (V[]) new Object[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,200 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid which buckets items by the cell containing their last known position.
+ * Range and box queries only visit the cells overlapping the query cube, so their cost depends on the local density
+ * instead of the total number of items in the grid.
+ */
+public class SpatialHashGrid<T> {
+    private static final int AXIS_BITS = 21;
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+
+    private final float cellSize;
+    private final LongObjectHashMap<List<Entry<T>>> cells = new LongObjectHashMap<>();
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+
+    public SpatialHashGrid(float cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Inserts the item or moves it to its new position.
+     */
+    public void put(T item, float x, float y, float z) {
+        long cellKey = cellKey(cell(x), cell(y), cell(z));
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            entry = new Entry<>(item);
+            entries.put(item, entry);
+            addToCell(entry, cellKey);
+        } else if (entry.cellKey != cellKey) {
+            removeFromCell(entry);
+            addToCell(entry, cellKey);
+        }
+        entry.x = x;
+        entry.y = y;
+        entry.z = z;
+    }
+
+    public void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry != null) {
+            removeFromCell(entry);
+        }
+    }
+
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Adds every item within {@code radius} of the given position to {@code result}.
+     *
+     * @return The number of items whose distance was checked.
+     */
+    public int query(float x, float y, float z, float radius, List<? super T> result) {
+        return query(x, y, z, radius, (item, distanceSquared) -> result.add(item));
+    }
+
+    /**
+     * Passes every item within {@code radius} of the given position to the visitor, without collecting them.
+     *
+     * @return The number of items whose distance was checked.
+     */
+    public int query(float x, float y, float z, float radius, Visitor<? super T> visitor) {
+        float radiusSquared = radius * radius;
+        int minX = cell(x - radius);
+        int maxX = cell(x + radius);
+        int minY = cell(y - radius);
+        int maxY = cell(y + radius);
+        int minZ = cell(z - radius);
+        int maxZ = cell(z + radius);
+        int scanned = 0;
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    List<Entry<T>> cell = cells.get(cellKey(cx, cy, cz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size(); i++) {
+                        Entry<T> entry = cell.get(i);
+                        float dx = entry.x - x;
+                        float dy = entry.y - y;
+                        float dz = entry.z - z;
+                        scanned++;
+                        float distanceSquared = dx * dx + dy * dy + dz * dz;
+                        if (distanceSquared <= radiusSquared) {
+                            visitor.visit(entry.item, distanceSquared);
+                        }
+                    }
+                }
+            }
+        }
+        return scanned;
+    }
+
+    /**
+     * Adds every item inside the box to {@code result}. The minimum corner is inclusive and the maximum corner exclusive,
+     * so that adjacent boxes, such as chunks, never both contain an item.
+     *
+     * @return The number of items whose position was checked.
+     */
+    public int queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, List<? super T> result) {
+        int scanned = 0;
+        for (int cx = cell(minX); cx <= cell(maxX); cx++) {
+            for (int cy = cell(minY); cy <= cell(maxY); cy++) {
+                for (int cz = cell(minZ); cz <= cell(maxZ); cz++) {
+                    List<Entry<T>> cell = cells.get(cellKey(cx, cy, cz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size(); i++) {
+                        Entry<T> entry = cell.get(i);
+                        scanned++;
+                        if (entry.x >= minX && entry.x < maxX && entry.y >= minY && entry.y < maxY
+                                && entry.z >= minZ && entry.z < maxZ) {
+                            result.add(entry.item);
+                        }
+                    }
+                }
+            }
+        }
+        return scanned;
+    }
+
+    public void clear() {
+        cells.clear();
+        entries.clear();
+    }
+
+    private void addToCell(Entry<T> entry, long cellKey) {
+        List<Entry<T>> cell = cells.get(cellKey);
+        if (cell == null) {
+            cell = new ArrayList<>();
+            cells.put(cellKey, cell);
+        }
+        entry.cellKey = cellKey;
+        entry.index = cell.size();
+        cell.add(entry);
+    }
+
+    private void removeFromCell(Entry<T> entry) {
+        List<Entry<T>> cell = cells.get(entry.cellKey);
+        // Order inside a cell is irrelevant, so move the last entry into the freed slot instead of shifting.
+        Entry<T> last = cell.remove(cell.size() - 1);
+        if (last != entry) {
+            last.index = entry.index;
+            cell.set(entry.index, last);
+        }
+        if (cell.isEmpty()) {
+            cells.remove(entry.cellKey);
+        }
+    }
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(int x, int y, int z) {
+        return ((x & AXIS_MASK) << (2 * AXIS_BITS)) | ((y & AXIS_MASK) << AXIS_BITS) | (z & AXIS_MASK);
+    }
+
+    /**
+     * Receives the items found by a range query.
+     */
+    @FunctionalInterface
+    public interface Visitor<T> {
+        void visit(T item, float distanceSquared);
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private long cellKey;
+        /**
+         * Position of the entry in the list of its cell.
+         */
+        private int index;
+        private float x;
+        private float y;
+        private float z;
+
+        private Entry(T item) {
+            this.item = item;
+        }
+    }
+}
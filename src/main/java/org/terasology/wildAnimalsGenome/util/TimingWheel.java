@@ -0,0 +1,144 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.util;
+
+import java.util.List;
+
+/**
+ * A hashed timing wheel which expires items after their deadline.
+ * <p>
+ * Deadlines are rounded up to ticks of a fixed duration and hashed into a power-of-two number of slots, each holding a
+ * doubly linked list. Scheduling and cancelling are O(1), and expiring visits each slot once per tick, so the cost
+ * does not depend on how many items are waiting for a later tick. Deadlines further away than one revolution stay in
+ * their slot for the corresponding number of rounds.
+ */
+public class TimingWheel<T> {
+    private final long tickDuration;
+    private final int mask;
+    private final Timeout<T>[] slots;
+
+    /**
+     * The next tick to be processed.
+     */
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param slotCount The number of slots, which must be a power of two.
+     * @param tickDuration The duration of a tick, which is the resolution of the deadlines.
+     * @param startTime The current time.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(int slotCount, long tickDuration, long startTime) {
+        if (slotCount <= 0 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a positive power of two: " + slotCount);
+        }
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickDuration);
+        }
+        this.tickDuration = tickDuration;
+        this.mask = slotCount - 1;
+        this.slots = (Timeout<T>[]) new Timeout[slotCount];
+        this.currentTick = startTime / tickDuration;
+    }
+
+    /**
+     * Schedules the item to expire at the given time. Deadlines in the past expire on the next call to
+     * {@link #expire(long, List)}.
+     *
+     * @return A handle which can be passed to {@link #cancel(Timeout)}.
+     */
+    public Timeout<T> schedule(T item, long deadline) {
+        long deadlineTick = Math.max((deadline + tickDuration - 1) / tickDuration, currentTick);
+        Timeout<T> timeout = new Timeout<>(item);
+        timeout.rounds = (deadlineTick - currentTick) / slots.length;
+        timeout.slot = (int) (deadlineTick & mask);
+        timeout.next = slots[timeout.slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        slots[timeout.slot] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Removes the timeout from the wheel. Cancelling a timeout which already expired or was cancelled does nothing.
+     */
+    public void cancel(Timeout<T> timeout) {
+        if (timeout.slot < 0) {
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.slot = -1;
+        size--;
+    }
+
+    /**
+     * Processes every tick up to the given time and adds the items whose deadline passed to {@code expired}.
+     *
+     * @return The number of expired items.
+     */
+    public int expire(long now, List<? super T> expired) {
+        long nowTick = now / tickDuration;
+        if (size == 0) {
+            // Nothing can expire, so skip the idle ticks instead of walking through them.
+            currentTick = nowTick + 1;
+            return 0;
+        }
+        int count = 0;
+        while (currentTick <= nowTick) {
+            int slot = (int) (currentTick & mask);
+            currentTick++;
+            Timeout<T> timeout = slots[slot];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    cancel(timeout);
+                    expired.add(timeout.item);
+                    count++;
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A handle to a scheduled item.
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private long rounds;
+        private int slot = -1;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T item) {
+            this.item = item;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public boolean isScheduled() {
+            return slot >= 0;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.genetics;
+
+import org.junit.jupiter.api.Test;
+import org.terasology.genome.GenomeDefinition;
+import org.terasology.genome.GenomeRegistry;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpeciesGenomesTest {
+
+    @Test
+    public void testRegistryGrowsWithSpeciesNotBirths() {
+        CountingGenomeRegistry registry = new CountingGenomeRegistry();
+        TraitSchema[] schemas = {TraitSchema.createDefault(), TraitSchema.createDefault(),
+                TraitSchema.createDefault(EnumSet.of(Trait.SPEED, Trait.SIZE))};
+        SpeciesGenomes genomes = new SpeciesGenomes(registry, "WildAnimals:",
+                new String[]{"default", "deer", "rabbit"}, schemas, new SplittableRandom(1));
+        SplittableRandom random = new SplittableRandom(2);
+
+        // Breed many generations the way Genome does: look up the definition of the parents and cross their genes.
+        String[] genes = new String[schemas.length];
+        for (int species = 0; species < schemas.length; species++) {
+            genes[species] = schemas[species].toGeneString(random.nextLong());
+        }
+        for (int birth = 0; birth < 10_000; birth++) {
+            int species = random.nextInt(schemas.length);
+            GenomeDefinition definition = registry.getGenomeDefinition(genomes.getGenomeId(species));
+            String offspring = definition.getBreedingAlgorithm().produceCross(genes[species],
+                    schemas[species].toGeneString(random.nextLong()));
+            assertTrue(schemas[species].isGeneString(offspring));
+            genes[species] = offspring;
+        }
+
+        assertEquals(3, registry.registrations);
+        assertEquals(3, registry.definitions.size());
+        assertEquals(3, genomes.size());
+    }
+
+    @Test
+    public void testGenomeIdsRoundTrip() {
+        SpeciesGenomes genomes = new SpeciesGenomes(new CountingGenomeRegistry(), "WildAnimals:",
+                new String[]{"default", "deer"}, new TraitSchema[]{TraitSchema.createDefault(), TraitSchema.createDefault()},
+                new SplittableRandom(3));
+
+        assertEquals("WildAnimals:deer", genomes.getGenomeId(1));
+        assertEquals(1, genomes.getSpecies("WildAnimals:deer"));
+        assertEquals(0, genomes.getSpecies("WildAnimals:default"));
+        assertEquals(-1, genomes.getSpecies("Other:deer"));
+    }
+
+    /**
+     * Counts every registration, as Genome's registry keeps every definition it is given.
+     */
+    private static final class CountingGenomeRegistry implements GenomeRegistry {
+        private final Map<String, GenomeDefinition> definitions = new HashMap<>();
+        private int registrations;
+
+        @Override
+        public void registerType(String genomeId, GenomeDefinition genomeDefinition) {
+            registrations++;
+            definitions.put(genomeId, genomeDefinition);
+        }
+
+        @Override
+        public GenomeDefinition getGenomeDefinition(String genomeId) {
+            return definitions.get(genomeId);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.genetics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TraitSchemaTest {
+    private final TraitSchema schema = TraitSchema.createDefault();
+
+    @Test
+    public void testDefaultLayout() {
+        assertEquals(40, schema.getTotalBits());
+        assertEquals((1L << 40) - 1, schema.getGenomeMask());
+        for (Trait trait : Trait.values()) {
+            assertTrue(schema.has(trait));
+        }
+
+        TraitSchema speedOnly = TraitSchema.createDefault(EnumSet.of(Trait.SPEED));
+        assertEquals(8, speedOnly.getTotalBits());
+        assertFalse(speedOnly.has(Trait.HEALTH));
+        assertEquals(1f, speedOnly.express(-1L, Trait.HEALTH), 0);
+    }
+
+    @Test
+    public void testEncodeExpressRoundTrip() {
+        long genes = 0;
+        genes = schema.encode(genes, Trait.SPEED, 1.2f);
+        genes = schema.encode(genes, Trait.SIZE, 0.8f);
+        genes = schema.encode(genes, Trait.TEMPERAMENT, 0.25f);
+
+        // 8 bits over a range of 1 quantize to steps of 1/255.
+        assertEquals(1.2f, schema.express(genes, Trait.SPEED), 1f / 255);
+        assertEquals(0.8f, schema.express(genes, Trait.SIZE), 0.5f / 255);
+        assertEquals(0.25f, schema.express(genes, Trait.TEMPERAMENT), 1f / 255);
+        assertEquals(0.5f, schema.express(genes, Trait.HEALTH), 0);
+        assertEquals(0.7f, schema.expressNormalized(genes, Trait.SPEED), 1f / 255);
+    }
+
+    @Test
+    public void testEncodeClampsToRangeAndKeepsOtherTraits() {
+        long genes = schema.encode(0, Trait.HEALTH, 1.5f);
+        genes = schema.encode(genes, Trait.SPEED, 10f);
+
+        assertEquals(1.5f, schema.express(genes, Trait.SPEED), 0);
+        assertEquals(1.5f, schema.express(genes, Trait.HEALTH), 0);
+        assertEquals(0.5f, schema.express(schema.encode(genes, Trait.SPEED, -10f), Trait.SPEED), 0);
+    }
+
+    @Test
+    public void testCrossoverTakesEveryTraitFromOneParent() {
+        long parent1 = 0;
+        long parent2 = schema.getGenomeMask();
+
+        assertEquals(parent1, schema.crossover(parent1, parent2, 0));
+        assertEquals(parent2, schema.crossover(parent1, parent2, -1L));
+
+        // Bits 0 and 2 select the second parent for SPEED and SIZE.
+        long offspring = schema.crossover(parent1, parent2, 0b101);
+        assertEquals(1.5f, schema.express(offspring, Trait.SPEED), 0);
+        assertEquals(0.5f, schema.express(offspring, Trait.HEALTH), 0);
+        assertEquals(1.25f, schema.express(offspring, Trait.SIZE), 0);
+        assertEquals(0f, schema.express(offspring, Trait.FERTILITY), 0);
+    }
+
+    @Test
+    public void testCrossoverStaysWithinGenome() {
+        long offspring = schema.crossover(-1L, -1L, -1L);
+
+        assertEquals(schema.getGenomeMask(), offspring);
+    }
+
+    @Test
+    public void testMutateFlipsSingleBit() {
+        long genes = schema.encode(0, Trait.SPEED, 1f);
+
+        for (int bit = 0; bit < schema.getTotalBits(); bit++) {
+            long mutated = schema.mutate(genes, bit);
+            assertEquals(1, Long.bitCount(mutated ^ genes));
+            assertEquals(genes, schema.mutate(mutated, bit));
+        }
+    }
+
+    @Test
+    public void testBreedInheritsFromParents() {
+        long parent1 = schema.encode(0, Trait.SPEED, 0.5f);
+        long parent2 = schema.encode(0, Trait.SPEED, 1.5f);
+        SplittableRandom random = new SplittableRandom(42);
+        int fromParent1 = 0;
+        int fromParent2 = 0;
+        for (int i = 0; i < 1000; i++) {
+            float speed = schema.express(schema.breed(parent1, parent2, random), Trait.SPEED);
+            if (speed == 0.5f) {
+                fromParent1++;
+            } else if (speed == 1.5f) {
+                fromParent2++;
+            }
+        }
+        // Apart from rare mutations of the speed bits, each parent passes on its speed about half of the time.
+        assertTrue(fromParent1 + fromParent2 > 990);
+        assertTrue(fromParent1 > 400 && fromParent2 > 400);
+    }
+
+    @Test
+    public void testGeneStringRoundTrip() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100; i++) {
+            long genes = random.nextLong() & schema.getGenomeMask();
+            String geneString = schema.toGeneString(genes);
+            assertEquals(10, geneString.length());
+            assertTrue(schema.isGeneString(geneString));
+            assertEquals(genes, schema.parseGeneString(geneString));
+        }
+        assertFalse(schema.isGeneString("A"));
+        assertFalse(schema.isGeneString("zzzzzzzzzz"));
+        assertThrows(IllegalArgumentException.class, () -> schema.parseGeneString("B"));
+    }
+
+    @Test
+    public void testBuilderRejectsInvalidTraits() {
+        TraitSchema.Builder builder = TraitSchema.builder().add(Trait.SPEED, 32, 0, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add(Trait.SPEED, 8, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(Trait.HEALTH, 33, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(Trait.HEALTH, 0, 0, 1));
+        builder.add(Trait.HEALTH, 32, 0, 1);
+        assertThrows(IllegalArgumentException.class, () -> builder.add(Trait.SIZE, 1, 0, 1));
+    }
+
+    @Test
+    public void testBuiltSchemaIsNotAffectedByLaterAdditions() {
+        TraitSchema.Builder builder = TraitSchema.builder().add(Trait.SPEED, 8, 0, 1);
+        TraitSchema built = builder.build();
+
+        builder.add(Trait.HEALTH, 8, 0, 1);
+
+        assertFalse(built.has(Trait.HEALTH));
+        assertEquals(8, built.getTotalBits());
+    }
+
+    @Test
+    public void testSchemaWithoutTraitsBreedsEmptyGenes() {
+        TraitSchema schema = TraitSchema.createDefault(EnumSet.noneOf(Trait.class));
+        SplittableRandom random = new SplittableRandom(7);
+
+        assertEquals(0, schema.getTotalBits());
+        // Enough offspring that some of them would be mutated.
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0L, schema.breed(0L, 0L, random));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BreedingJournalTest {
+    private static final int RECORDS_PER_SEGMENT = 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRoundTripAcrossSegments() throws IOException {
+        try (BreedingJournalWriter writer = new BreedingJournalWriter(directory, RECORDS_PER_SEGMENT)) {
+            for (int i = 0; i < 10; i++) {
+                append(writer, i);
+            }
+        }
+
+        assertEquals(3, BreedingJournalReader.listSegments(directory).size());
+        try (BreedingJournalReader reader = new BreedingJournalReader(directory)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(reader.next());
+                assertEquals(1000L + i, reader.getTimestamp());
+                assertEquals(i % 2 == 0 ? BreedingJournal.PAIRING : BreedingJournal.BIRTH, reader.getType());
+                assertEquals(i % 3, reader.getSpecies());
+                assertEquals(10L + i, reader.getParent1());
+                assertEquals(20L + i, reader.getParent2());
+                assertEquals(30L + i, reader.getOffspring());
+                assertEquals(-1L - i, reader.getGenes());
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testReopenedWriterAppendsNewSegments() throws IOException {
+        try (BreedingJournalWriter writer = new BreedingJournalWriter(directory, RECORDS_PER_SEGMENT)) {
+            append(writer, 0);
+        }
+        try (BreedingJournalWriter writer = new BreedingJournalWriter(directory, RECORDS_PER_SEGMENT)) {
+            append(writer, 1);
+        }
+
+        assertEquals(List.of(1000L, 1001L), readTimestamps());
+    }
+
+    @Test
+    public void testReopenAfterDeletingSegment() throws IOException {
+        try (BreedingJournalWriter writer = new BreedingJournalWriter(directory, RECORDS_PER_SEGMENT)) {
+            for (int i = 0; i < 12; i++) {
+                append(writer, i);
+            }
+        }
+        Files.delete(directory.resolve(BreedingJournal.segmentName(0)));
+
+        // Two segments remain, so counting them would reuse the index of the last one.
+        try (BreedingJournalWriter writer = new BreedingJournalWriter(directory, RECORDS_PER_SEGMENT)) {
+            append(writer, 12);
+        }
+
+        assertEquals(List.of(1004L, 1005L, 1006L, 1007L, 1008L, 1009L, 1010L, 1011L, 1012L), readTimestamps());
+        assertEquals(3, BreedingJournalReader.segmentIndex(BreedingJournalReader.listSegments(directory).get(2)));
+    }
+
+    @Test
+    public void testSegmentsAreOrderedByIndex() throws IOException {
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("other.journal"), new byte[0]);
+        Files.write(directory.resolve("breeding-x.journal"), new byte[0]);
+        try (BreedingJournalWriter writer = new BreedingJournalWriter(directory, RECORDS_PER_SEGMENT)) {
+            append(writer, 0);
+        }
+        // Past six digits the names no longer sort like the indices.
+        Files.move(directory.resolve(BreedingJournal.segmentName(0)),
+                directory.resolve(BreedingJournal.segmentName(999999)));
+        for (int i = 1; i <= 2; i++) {
+            try (BreedingJournalWriter writer = new BreedingJournalWriter(directory, RECORDS_PER_SEGMENT)) {
+                append(writer, i);
+            }
+        }
+
+        assertEquals(List.of(1000L, 1001L, 1002L), readTimestamps());
+        assertEquals(1000001, BreedingJournalReader.segmentIndex(BreedingJournalReader.listSegments(directory).get(2)));
+    }
+
+    private static void append(BreedingJournalWriter writer, int i) throws IOException {
+        writer.append(1000L + i, i % 2 == 0 ? BreedingJournal.PAIRING : BreedingJournal.BIRTH, i % 3, 10L + i, 20L + i,
+                30L + i, -1L - i);
+    }
+
+    private List<Long> readTimestamps() throws IOException {
+        List<Long> timestamps = new ArrayList<>();
+        try (BreedingJournalReader reader = new BreedingJournalReader(directory)) {
+            while (reader.next()) {
+                timestamps.add(reader.getTimestamp());
+            }
+        }
+        return timestamps;
+    }
+}
@@ -0,0 +1,99 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundsAreContiguous() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int bucket = 0; bucket < histogram.getNumberOfBuckets() - 1; bucket++) {
+            long lowerBound = LatencyHistogram.getBucketLowerBound(bucket);
+            long nextLowerBound = LatencyHistogram.getBucketLowerBound(bucket + 1);
+            assertTrue(nextLowerBound > lowerBound);
+
+            assertEquals(bucket, bucketOf(lowerBound));
+            assertEquals(bucket, bucketOf(nextLowerBound - 1));
+        }
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.getBucketLowerBound(value));
+            assertEquals(value, bucketOf(value));
+        }
+    }
+
+    @Test
+    public void testBucketWidthIsBoundedRelativeToValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int bucket = 16; bucket < histogram.getNumberOfBuckets() - 1; bucket++) {
+            long lowerBound = LatencyHistogram.getBucketLowerBound(bucket);
+            long width = LatencyHistogram.getBucketLowerBound(bucket + 1) - lowerBound;
+            assertTrue(width * 16 <= lowerBound, "bucket " + bucket);
+        }
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(1, histogram.getBucketCount(histogram.getNumberOfBuckets() - 1));
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(500, histogram.getPercentile(50), 500 / 16);
+        assertEquals(990, histogram.getPercentile(99), 990 / 16);
+        assertTrue(histogram.getPercentile(50) <= 500);
+        assertTrue(histogram.getPercentile(100) <= 1000);
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    /**
+     * Records a single value and returns the bucket it was counted in.
+     */
+    private static int bucketOf(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        for (int bucket = 0; bucket < histogram.getNumberOfBuckets(); bucket++) {
+            if (histogram.getBucketCount(bucket) > 0) {
+                return bucket;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,35 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class PairLifecycleTracerTest {
+
+    @Test
+    public void testPairKeyIgnoresOrderAndKeepsBothAnimals() {
+        assertEquals(PairLifecycleTracer.pairKey(3, 7), PairLifecycleTracer.pairKey(7, 3));
+        // Pairs sharing their lower id must not share a key.
+        assertNotEquals(PairLifecycleTracer.pairKey(3, 7), PairLifecycleTracer.pairKey(3, 8));
+        assertNotEquals(PairLifecycleTracer.pairKey(3, 7), PairLifecycleTracer.pairKey(7, 8));
+    }
+
+    @Test
+    public void testPhasesOfDifferentPairsSharingAnAnimal() {
+        PairLifecycleTracer tracer = new PairLifecycleTracer();
+        tracer.setEnabled(true);
+        PairLifecycleTracer.Phase phase = PairLifecycleTracer.Phase.PROPOSAL_TO_ACCEPTANCE;
+
+        tracer.start(phase, PairLifecycleTracer.pairKey(1, 2), 100);
+        tracer.start(phase, PairLifecycleTracer.pairKey(1, 3), 200);
+        tracer.end(phase, PairLifecycleTracer.pairKey(2, 1), 150);
+        tracer.end(phase, PairLifecycleTracer.pairKey(3, 1), 500);
+
+        LatencyHistogram histogram = tracer.getHistogram(phase);
+        assertEquals(2, histogram.getCount());
+        assertEquals(300, histogram.getMax());
+    }
+}
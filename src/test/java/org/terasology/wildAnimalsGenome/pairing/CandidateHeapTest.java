@@ -0,0 +1,121 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.pairing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CandidateHeapTest {
+
+    @Test
+    public void testKeepsTopK() {
+        List<Integer> scores = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            scores.add(i);
+        }
+        Collections.shuffle(scores, new Random(1));
+        CandidateHeap<Integer> heap = new CandidateHeap<>(4);
+
+        for (int score : scores) {
+            heap.offer(score, score);
+        }
+
+        assertEquals(4, heap.size());
+        assertEquals(Set.of(96, 97, 98, 99), keptCandidates(heap));
+    }
+
+    @Test
+    public void testKeepsAllWhileNotFull() {
+        CandidateHeap<String> heap = new CandidateHeap<>(4);
+        heap.offer("low", -2);
+        heap.offer("high", 5);
+
+        assertEquals(2, heap.size());
+        assertEquals("high", heap.best());
+    }
+
+    @Test
+    public void testIgnoresCandidatesNotBeatingWorst() {
+        CandidateHeap<String> heap = new CandidateHeap<>(2);
+        heap.offer("a", 1);
+        heap.offer("b", 2);
+        heap.offer("tie", 1);
+        heap.offer("worse", 0);
+
+        assertEquals(Set.of("a", "b"), keptCandidates(heap));
+    }
+
+    @Test
+    public void testPickWeightedIsProportionalToScore() {
+        CandidateHeap<String> heap = new CandidateHeap<>(4);
+        SplittableRandom random = new SplittableRandom(2);
+        int picksOfHigh = 0;
+        int draws = 100_000;
+        for (int i = 0; i < draws; i++) {
+            heap.offer("low", 1);
+            heap.offer("high", 3);
+            heap.offer("negative", -1);
+            if ("high".equals(heap.pickWeighted(random))) {
+                picksOfHigh++;
+            }
+            heap.clear();
+        }
+
+        assertEquals(0.75, (double) picksOfHigh / draws, 0.01);
+    }
+
+    @Test
+    public void testPickWeightedFallsBackToBest() {
+        CandidateHeap<String> heap = new CandidateHeap<>(4);
+        SplittableRandom random = new SplittableRandom(3);
+        assertNull(heap.pickWeighted(random));
+        assertNull(heap.best());
+
+        heap.offer("worse", -3);
+        heap.offer("better", -1);
+
+        assertEquals("better", heap.pickWeighted(random));
+    }
+
+    @Test
+    public void testClear() {
+        CandidateHeap<String> heap = new CandidateHeap<>(2);
+        heap.offer("a", 1);
+        heap.offer("b", 2);
+
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        heap.offer("c", 0);
+        assertEquals("c", heap.best());
+    }
+
+    @Test
+    public void testRejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new CandidateHeap<String>(0));
+    }
+
+    /**
+     * Collects the kept candidates by drawing from them; every candidate with a positive score is drawn eventually.
+     */
+    private static <T> Set<T> keptCandidates(CandidateHeap<T> heap) {
+        SplittableRandom random = new SplittableRandom(0);
+        Set<T> kept = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            kept.add(heap.pickWeighted(random));
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.pairing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PairWatchdogTest {
+    private static final long TICK = 250L;
+
+    @Test
+    public void testExpiresPairsAfterDeadline() {
+        PairWatchdog<String> watchdog = new PairWatchdog<>(16, TICK, 0L);
+        watchdog.watch(1L, "early", 1000L);
+        watchdog.watch(2L, "late", 10_000L);
+        List<String> expired = new ArrayList<>();
+
+        assertEquals(0, watchdog.expire(750L, expired));
+        assertEquals(1, watchdog.expire(1000L, expired));
+
+        assertEquals(List.of("early"), expired);
+        assertFalse(watchdog.isWatched(1L));
+        assertTrue(watchdog.isWatched(2L));
+        assertEquals(1, watchdog.size());
+    }
+
+    @Test
+    public void testWatchReplacesDeadline() {
+        PairWatchdog<String> watchdog = new PairWatchdog<>(16, TICK, 0L);
+        watchdog.watch(1L, "proposing", 1000L);
+        watchdog.watch(1L, "paired", 5000L);
+        List<String> expired = new ArrayList<>();
+
+        assertEquals(0, watchdog.expire(2000L, expired));
+        assertEquals(1, watchdog.expire(5000L, expired));
+
+        assertEquals(List.of("paired"), expired);
+    }
+
+    @Test
+    public void testUnwatchedPairNeverExpires() {
+        PairWatchdog<String> watchdog = new PairWatchdog<>(16, TICK, 0L);
+        watchdog.watch(1L, "pair", 1000L);
+
+        watchdog.unwatch(1L);
+
+        assertEquals(0, watchdog.expire(10_000L, new ArrayList<>()));
+        assertEquals(0, watchdog.size());
+    }
+
+    @Test
+    public void testReportsRestoredStateWithoutWatch() {
+        // A new watchdog, as after a world reload, while the animals still carry the state of their last mating.
+        PairWatchdog<String> watchdog = new PairWatchdog<>(16, TICK, 100_000L);
+        watchdog.checkRestored(1L, "stale");
+        watchdog.checkRestored(1L, "stalePartner");
+        List<String> unwatched = new ArrayList<>();
+
+        assertEquals(2, watchdog.drainUnwatched(unwatched));
+
+        assertEquals(List.of("stale", "stalePartner"), unwatched);
+        assertEquals(0, watchdog.drainUnwatched(unwatched));
+    }
+
+    @Test
+    public void testIgnoresActivatedStateOfWatchedPair() {
+        PairWatchdog<String> watchdog = new PairWatchdog<>(16, TICK, 0L);
+        watchdog.checkRestored(1L, "proposer");
+        watchdog.watch(1L, "pair", 1000L);
+        List<String> unwatched = new ArrayList<>();
+
+        assertEquals(0, watchdog.drainUnwatched(unwatched));
+        assertTrue(unwatched.isEmpty());
+    }
+
+    @Test
+    public void testReportsStateOfExpiredPair() {
+        PairWatchdog<String> watchdog = new PairWatchdog<>(16, TICK, 0L);
+        watchdog.watch(1L, "pair", 1000L);
+        watchdog.expire(1000L, new ArrayList<>());
+        // The chunk of the animal was unloaded while its pair expired, and is loaded again.
+        watchdog.checkRestored(1L, "reloaded");
+        List<String> unwatched = new ArrayList<>();
+
+        assertEquals(1, watchdog.drainUnwatched(unwatched));
+        assertEquals(List.of("reloaded"), unwatched);
+    }
+}
@@ -0,0 +1,84 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.pedigree;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PedigreeTableTest {
+    private static final double EPSILON = 1e-12;
+
+    private final PedigreeTable table = new PedigreeTable();
+
+    @Test
+    public void testFounders() {
+        int founder1 = addFounder();
+        int founder2 = addFounder();
+
+        assertEquals(0, founder1);
+        assertEquals(1, founder2);
+        assertEquals(0, table.getKinship(founder1, founder2), EPSILON);
+        assertEquals(0.5, table.getKinship(founder1, founder1), EPSILON);
+        assertEquals(0, table.getInbreeding(founder1), EPSILON);
+        assertEquals(0, table.getKinship(founder1, PedigreeTable.UNKNOWN), EPSILON);
+    }
+
+    @Test
+    public void testSiblings() {
+        int father = addFounder();
+        int mother = addFounder();
+        int otherMother = addFounder();
+        int child = table.add(father, mother);
+        int sibling = table.add(mother, father);
+        int halfSibling = table.add(father, otherMother);
+
+        assertEquals(0.25, table.getKinship(child, sibling), EPSILON);
+        assertEquals(0.125, table.getKinship(child, halfSibling), EPSILON);
+        assertEquals(0.125, table.getKinship(halfSibling, sibling), EPSILON);
+        assertEquals(0.25, table.getKinship(father, child), EPSILON);
+        assertEquals(0, table.getKinship(otherMother, child), EPSILON);
+    }
+
+    @Test
+    public void testCousinsAndInbreeding() {
+        int father = addFounder();
+        int mother = addFounder();
+        int child = table.add(father, mother);
+        int sibling = table.add(father, mother);
+        int cousin1 = table.add(child, addFounder());
+        int cousin2 = table.add(sibling, addFounder());
+        int inbred = table.add(child, sibling);
+
+        assertEquals(0.0625, table.getKinship(cousin1, cousin2), EPSILON);
+        assertEquals(0.25, table.getInbreeding(inbred), EPSILON);
+        assertEquals(0.5 * (1 + 0.25), table.getKinship(inbred, inbred), EPSILON);
+        // The kinship is symmetric, also once it is cached.
+        assertEquals(table.getKinship(cousin2, cousin1), table.getKinship(cousin1, cousin2), EPSILON);
+    }
+
+    @Test
+    public void testLoadReplacesContent() {
+        int father = addFounder();
+        int mother = addFounder();
+        int child = table.add(father, mother);
+        int sibling = table.add(father, mother);
+        assertEquals(0.25, table.getKinship(child, sibling), EPSILON);
+
+        int unknown = PedigreeTable.UNKNOWN;
+        table.load(new int[]{unknown, unknown, 0, 1}, new int[]{unknown, unknown, 1, unknown});
+
+        assertEquals(4, table.size());
+        assertTrue(table.contains(3));
+        assertFalse(table.contains(4));
+        assertEquals(0.125, table.getKinship(child, sibling), EPSILON);
+        assertEquals(1, table.getParent2(2));
+        assertEquals(4, table.add(0, 1));
+    }
+
+    private int addFounder() {
+        return table.add(PedigreeTable.UNKNOWN, PedigreeTable.UNKNOWN);
+    }
+}
@@ -0,0 +1,137 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.population;
+
+import org.junit.jupiter.api.Test;
+import org.terasology.wildAnimalsGenome.genetics.Trait;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DormantPopulationTest {
+    private static final TraitSchema SCHEMA = TraitSchema.createDefault();
+
+    @Test
+    public void testAddTracksCountAnchorAndGenomes() {
+        DormantPopulation population = new DormantPopulation("deer", "WildAnimals:deer", 42L);
+        population.add(0b01, 1, 2, 3);
+        population.add(0b11, 10, 20, 30);
+
+        assertEquals(2, population.getCount());
+        assertEquals(1, population.getAnchorX(), 0);
+        assertEquals(2, population.getAnchorY(), 0);
+        assertEquals(3, population.getAnchorZ(), 0);
+        assertEquals(0b01, population.getGenes(0));
+        assertEquals(0b11, population.getGenes(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> population.getGenes(2));
+    }
+
+    @Test
+    public void testStepGrowsTowardsCapacity() {
+        DormantPopulation population = createPopulation(10, 0);
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int i = 0; i < 1000; i++) {
+            int before = population.getCount();
+            int change = population.step(random, 0.1, 0, 40, SCHEMA);
+            assertEquals(before + change, population.getCount());
+        }
+
+        assertTrue(population.getCount() >= 39 && population.getCount() <= 40, "count " + population.getCount());
+    }
+
+    @Test
+    public void testNewbornsInheritWholeTraits() {
+        TraitSchema schema = TraitSchema.builder().add(Trait.SPEED, 8, 0, 1).add(Trait.SIZE, 8, 0, 1).build();
+        DormantPopulation population = createPopulation(20, 0);
+        for (int i = 0; i < 20; i++) {
+            population.add(0xFFFF, 0, 0, 0);
+        }
+        SplittableRandom random = new SplittableRandom(5);
+
+        for (int i = 0; i < 100; i++) {
+            population.step(random, 0.5, 0.4, 200, schema);
+        }
+
+        // Sampling every bit on its own would mix the bits of a trait; breeding keeps each trait of one parent, apart
+        // from the occasional mutation of a single bit.
+        for (int i = 0; i < population.getCount(); i++) {
+            long genes = population.getGenes(i);
+            for (int shift = 0; shift < 16; shift += 8) {
+                int bits = Long.bitCount((genes >>> shift) & 0xFF);
+                assertTrue(bits <= 2 || bits >= 6, "trait bits " + Long.toHexString(genes));
+            }
+        }
+    }
+
+    @Test
+    public void testStepWithoutBirthsDeclines() {
+        DormantPopulation population = createPopulation(100, 0);
+        SplittableRandom random = new SplittableRandom(2);
+
+        int change = population.step(random, 0.5, 0.1, 1, SCHEMA);
+
+        assertTrue(change < 0);
+        assertEquals(100 + change, population.getCount());
+        assertTrue(population.getCount() >= 80 && population.getCount() <= 95, "count " + population.getCount());
+    }
+
+    @Test
+    public void testSingleAnimalDoesNotBreed() {
+        DormantPopulation population = createPopulation(1, 0);
+        SplittableRandom random = new SplittableRandom(3);
+
+        for (int i = 0; i < 100; i++) {
+            population.step(random, 1, 0, 40, SCHEMA);
+        }
+
+        assertEquals(1, population.getCount());
+    }
+
+    @Test
+    public void testRemoveRandomReturnsEveryGenomeOnce() {
+        DormantPopulation population = new DormantPopulation("deer", "WildAnimals:deer", 0);
+        for (long genes = 0; genes < 20; genes++) {
+            population.add(genes, 0, 0, 0);
+        }
+        SplittableRandom random = new SplittableRandom(4);
+
+        Set<Long> removed = new HashSet<>();
+        while (population.getCount() > 0) {
+            removed.add(population.removeRandom(random));
+        }
+
+        assertEquals(20, removed.size());
+        assertThrows(IllegalStateException.class, () -> population.removeRandom(random));
+    }
+
+    @Test
+    public void testClearAndLoad() {
+        DormantPopulation population = createPopulation(2, 0);
+        population.clear();
+        assertEquals(0, population.getCount());
+
+        population.load(1, 2, 3, new long[]{5, 6, 7});
+
+        assertEquals(3, population.getCount());
+        assertEquals(3, population.getAnchorZ(), 0);
+        assertEquals(7, population.getGenes(2));
+        population.add(8, 0, 0, 0);
+        assertEquals(8, population.getGenes(3));
+        assertEquals(1, population.getAnchorX(), 0);
+    }
+
+    private static DormantPopulation createPopulation(int count, long genes) {
+        DormantPopulation population = new DormantPopulation("deer", "WildAnimals:deer", 0);
+        for (int i = 0; i < count; i++) {
+            population.add(genes, 0, 0, 0);
+        }
+        return population;
+    }
+}
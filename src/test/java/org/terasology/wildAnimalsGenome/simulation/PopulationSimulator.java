@@ -0,0 +1,898 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.simulation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.wildAnimalsGenome.AnimalGeneticsSystem;
+import org.terasology.wildAnimalsGenome.AnimalMatingAuthoritySystem;
+import org.terasology.wildAnimalsGenome.AnimalSpatialIndex;
+import org.terasology.wildAnimalsGenome.BreedingProfileSystem;
+import org.terasology.wildAnimalsGenome.DormantPopulationSystem;
+import org.terasology.wildAnimalsGenome.component.BreedingProfileComponent;
+import org.terasology.wildAnimalsGenome.component.MatingPhase;
+import org.terasology.wildAnimalsGenome.genetics.ParentTraitSnapshot;
+import org.terasology.wildAnimalsGenome.genetics.Trait;
+import org.terasology.wildAnimalsGenome.genetics.TraitSchema;
+import org.terasology.wildAnimalsGenome.metrics.LatencyHistogram;
+import org.terasology.wildAnimalsGenome.metrics.PairLifecycleTracer;
+import org.terasology.wildAnimalsGenome.pairing.CandidateHeap;
+import org.terasology.wildAnimalsGenome.pairing.PairWatchdog;
+import org.terasology.wildAnimalsGenome.pedigree.PedigreeTable;
+import org.terasology.wildAnimalsGenome.population.DormantPopulation;
+import org.terasology.wildAnimalsGenome.util.IntAliasSampler;
+import org.terasology.wildAnimalsGenome.util.LongObjectHashMap;
+import org.terasology.wildAnimalsGenome.util.SpatialHashGrid;
+import org.terasology.wildAnimalsGenome.util.TimingWheel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A headless model of the breeding loop, to measure it with thousands of animals over hours of game time without
+ * starting the engine.
+ * <p>
+ * The systems are event handlers on entities and cannot run without the engine, so this class mirrors the serial path
+ * of the {@link AnimalMatingAuthoritySystem} step by step on plain arrays: searches scheduled on a timing wheel and run
+ * within the search budget, backoff after failed searches, mate choice among the best scored candidates of a
+ * {@link SpatialHashGrid}, the proposal and its response, the rendezvous next to the midpoint of the pair, the phase
+ * deadlines of a {@link PairWatchdog}, and the litters of the {@link AnimalGeneticsSystem}. Animals are folded into
+ * {@link DormantPopulation}s when they leave the relevant area, as their chunk would be unloaded, and recreated like
+ * the {@link DormantPopulationSystem} does.
+ * <p>
+ * What the engine provides is modelled instead: movement is a random walk, pathfinding fails for a share of the pairs,
+ * and every animal becomes ready to mate some time after it was born or bred, in place of a player activating it.
+ * Animals which are mating keep moving outside the relevant area, where the engine would store them with their chunk.
+ * <p>
+ * Run {@link #main} for long runs; the arguments are the number of animals and the simulated hours.
+ */
+public final class PopulationSimulator {
+    private static final Logger logger = LoggerFactory.getLogger(PopulationSimulator.class);
+
+    private static final float SPAWN_SPREAD = 4f;
+    private static final float CELL_SIZE = 10f;
+
+    /**
+     * The steps of a tick, whose CPU time is reported separately.
+     */
+    public enum Stage {
+        SEARCH,
+        MOVEMENT,
+        TARGET_CHECK,
+        BREEDING,
+        SPAWNING,
+        WATCHDOG,
+        DORMANT
+    }
+
+    /**
+     * The settings of a simulation. The settings of the breeding loop default to the defaults of the
+     * {@link BreedingProfileComponent} and of the systems; the others describe the world, which has no counterpart in
+     * the systems.
+     */
+    public static final class Config {
+        public long seed = 1;
+        public int animalCount = 10_000;
+        /**
+         * The side of the square the animals are spread over, in blocks.
+         */
+        public float worldSize = 1000;
+        public long tickMillis = 50;
+
+        public float searchRadius;
+        public long searchIntervalMillis;
+        public float targetReachedDistanceSquared;
+        public double[] litterSizeWeights;
+        public int regionPopulationCap = BreedingProfileSystem.DEFAULT_REGION_POPULATION_CAP;
+        /**
+         * CPU time spent on searches per tick; a non-positive budget runs every due search, so that runs with the
+         * same seed give the same result on any machine.
+         */
+        public long searchBudgetNanos = AnimalMatingAuthoritySystem.DEFAULT_SEARCH_BUDGET_NANOS;
+        public double maxKinship = AnimalMatingAuthoritySystem.DEFAULT_MAX_KINSHIP;
+        public long proposalTimeout = AnimalMatingAuthoritySystem.DEFAULT_PROPOSAL_TIMEOUT;
+        public long pairedTimeout = AnimalMatingAuthoritySystem.DEFAULT_PAIRED_TIMEOUT;
+        public long targetReachedTimeout = AnimalMatingAuthoritySystem.DEFAULT_TARGET_REACHED_TIMEOUT;
+        public float proximityWeight = AnimalMatingAuthoritySystem.DEFAULT_PROXIMITY_WEIGHT;
+        public float fitnessWeight = AnimalMatingAuthoritySystem.DEFAULT_FITNESS_WEIGHT;
+        public float kinshipWeight = AnimalMatingAuthoritySystem.DEFAULT_KINSHIP_WEIGHT;
+        public int maxOffspringPerTick = AnimalGeneticsSystem.MAX_OFFSPRING_PER_TICK;
+        public long dormantScanMillis = DormantPopulationSystem.DEFAULT_SCAN_INTERVAL;
+        public double dormantBirthRate = DormantPopulationSystem.DEFAULT_BIRTH_RATE;
+        public double dormantDeathRate = DormantPopulationSystem.DEFAULT_DEATH_RATE;
+        public float activeDistance = DormantPopulationSystem.DEFAULT_ACTIVE_DISTANCE;
+        public int maxMaterializedPerScan = DormantPopulationSystem.MAX_MATERIALIZED_PER_SCAN;
+
+        /**
+         * Blocks per second of an animal with a speed multiplier of 1.
+         */
+        public float walkSpeed = 1f;
+        public float runSpeed = 3f;
+        /**
+         * The mean time until an animal is ready to mate again after breeding, and after being born.
+         */
+        public long readyDelayMillis = 120_000;
+        public long maturityMillis = 600_000;
+        public double deathsPerHour = 0.05;
+        /**
+         * The share of pairs whose rendezvous cannot be reached, which are left to the watchdog.
+         */
+        public double unreachableRate = 0.02;
+        /**
+         * The single observer, standing in for the players, circles the centre at this radius and speed. Chunks further
+         * than the relevance distance from it are unloaded.
+         */
+        public float observerOrbit = 250;
+        public float observerSpeed = 5;
+        public float relevanceDistance = 160;
+
+        public Config() {
+            BreedingProfileComponent profile = new BreedingProfileComponent();
+            searchRadius = profile.searchRadius;
+            searchIntervalMillis = profile.searchInterval;
+            targetReachedDistanceSquared = profile.targetReachedDistanceSquared;
+            litterSizeWeights = new double[profile.litterSizeWeights.size()];
+            for (int i = 0; i < litterSizeWeights.length; i++) {
+                litterSizeWeights[i] = profile.litterSizeWeights.get(i);
+            }
+        }
+    }
+
+    /**
+     * The counters of a simulation.
+     */
+    public static final class Report {
+        public long simulatedMillis;
+        public long wallNanos;
+        public long births;
+        public long searches;
+        public long searchBudgetExhausted;
+        public long proposals;
+        public long rejectedProposals;
+        public long expiredPairs;
+        public long deaths;
+        public int liveAnimals;
+        public int dormantAnimals;
+        public int dormantPopulations;
+        public int inFlightPairs;
+        public int maxInFlightPairs;
+        public int pendingOffspring;
+        public final long[] stageNanos = new long[Stage.values().length];
+        /**
+         * Game time from the proposal to the birth, and from the proposal until both animals reached the target.
+         */
+        public final LatencyHistogram proposalToBirthMillis = new LatencyHistogram();
+        public final LatencyHistogram proposalToTargetMillis = new LatencyHistogram();
+
+        public double getBirthsPerSecond() {
+            return simulatedMillis == 0 ? 0 : births * 1000.0 / simulatedMillis;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("t=%ds live=%d dormant=%d (%d regions) inFlightPairs=%d (max %d) pendingOffspring=%d%n",
+                    simulatedMillis / 1000, liveAnimals, dormantAnimals, dormantPopulations, inFlightPairs, maxInFlightPairs,
+                    pendingOffspring));
+            builder.append(String.format("births=%d (%.3f/s) searches=%d (budget exhausted %d) proposals=%d (rejected %d) "
+                            + "expiredPairs=%d deaths=%d%n",
+                    births, getBirthsPerSecond(), searches, searchBudgetExhausted, proposals, rejectedProposals,
+                    expiredPairs, deaths));
+            builder.append(String.format("proposal->target p50=%dms p99=%dms, proposal->birth p50=%dms p99=%dms%n",
+                    proposalToTargetMillis.getPercentile(50), proposalToTargetMillis.getPercentile(99),
+                    proposalToBirthMillis.getPercentile(50), proposalToBirthMillis.getPercentile(99)));
+            builder.append(String.format("wall=%dms", wallNanos / 1_000_000));
+            for (Stage stage : Stage.values()) {
+                builder.append(String.format(" %s=%dms", stage.name().toLowerCase(), stageNanos[stage.ordinal()] / 1_000_000));
+            }
+            return builder.toString();
+        }
+    }
+
+    private final Config config;
+    private final Report report = new Report();
+    private final SplittableRandom random;
+    private final TraitSchema schema = TraitSchema.createDefault();
+    private final IntAliasSampler litterSizes;
+    private final PedigreeTable pedigree = new PedigreeTable();
+    private final SpatialHashGrid<Integer> grid = new SpatialHashGrid<>(CELL_SIZE);
+    private final LongObjectHashMap<int[]> regionPopulations = new LongObjectHashMap<>();
+    private final CandidateHeap<Integer> candidates =
+            new CandidateHeap<>(AnimalMatingAuthoritySystem.MATE_CHOICE_CANDIDATES);
+    private final CandidateScorer candidateScorer = new CandidateScorer();
+    private final List<Integer> nearbyAnimals = new ArrayList<>();
+    private final TimingWheel<Integer> searchWheel;
+    private final List<Integer> expiredSearches = new ArrayList<>();
+    private final ArrayDeque<Integer> dueSearches = new ArrayDeque<>();
+    private final PairWatchdog<int[]> watchdog;
+    private final List<int[]> expiredPairs = new ArrayList<>();
+    private final Map<Long, DormantPopulation> dormantPopulations = new HashMap<>();
+    private final ArrayDeque<Offspring> pendingOffspring = new ArrayDeque<>();
+
+    private long now;
+    private long nextDormantScan;
+    private float observerX;
+    private float observerZ;
+
+    /**
+     * The animals, by slot. Slots of removed animals are reused.
+     */
+    private int capacity;
+    private Integer[] slotKeys;
+    private boolean[] alive;
+    /**
+     * Whether the animal is ready to mate, like {@code MatingComponent.readyToMate}.
+     */
+    private boolean[] ready;
+    private float[] xs;
+    private float[] zs;
+    private long[] regions;
+    private float[] headings;
+    private float[] speeds;
+    private long[] genes;
+    private int[] pedigreeIds;
+    private MatingPhase[] phases;
+    private int[] partners;
+    private float[] targetXs;
+    private float[] targetZs;
+    private boolean[] stuck;
+    private long[] proposedAt;
+    /**
+     * The scheduled search of a ready animal, or the time an animal which is not ready becomes ready.
+     */
+    private TimingWheel.Timeout<Integer>[] searchTimeouts;
+    private boolean[] due;
+    private int[] failedSearches;
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private int used;
+
+    public PopulationSimulator(Config config) {
+        this.config = config;
+        this.random = new SplittableRandom(config.seed);
+        int[] sizes = new int[config.litterSizeWeights.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = i + 1;
+        }
+        this.litterSizes = new IntAliasSampler(config.litterSizeWeights, sizes);
+        this.searchWheel = new TimingWheel<>(512, AnimalMatingAuthoritySystem.SEARCH_TICK, 0);
+        this.watchdog = new PairWatchdog<>(256, AnimalMatingAuthoritySystem.WATCHDOG_TICK, 0);
+        grow(Math.max(config.animalCount, 16));
+        moveObserver();
+        for (int i = 0; i < config.animalCount; i++) {
+            float x = (random.nextFloat() - 0.5f) * config.worldSize;
+            float z = (random.nextFloat() - 0.5f) * config.worldSize;
+            int slot = spawn(random.nextLong() & schema.getGenomeMask(),
+                    pedigree.add(PedigreeTable.UNKNOWN, PedigreeTable.UNKNOWN), x, z);
+            becomeReadyAt(slot, exponential(config.readyDelayMillis));
+        }
+    }
+
+    public static void main(String[] args) {
+        Config config = new Config();
+        if (args.length > 0) {
+            config.animalCount = Integer.parseInt(args[0]);
+            config.worldSize = (float) Math.sqrt(config.animalCount) * 10;
+        }
+        double hours = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        PopulationSimulator simulator = new PopulationSimulator(config);
+        long end = (long) (hours * 3_600_000);
+        while (simulator.getTime() < end) {
+            Report report = simulator.run(Math.min(600_000, end - simulator.getTime()));
+            logger.info("{}", report);
+        }
+    }
+
+    /**
+     * Advances the simulation by the given game time.
+     *
+     * @return The counters since the start of the simulation.
+     */
+    public Report run(long durationMillis) {
+        long start = System.nanoTime();
+        long end = now + durationMillis;
+        while (now < end) {
+            tick();
+        }
+        report.wallNanos += System.nanoTime() - start;
+        report.simulatedMillis = now;
+        report.pendingOffspring = pendingOffspring.size();
+        report.dormantPopulations = dormantPopulations.size();
+        report.dormantAnimals = 0;
+        for (DormantPopulation population : dormantPopulations.values()) {
+            report.dormantAnimals += population.getCount();
+        }
+        return report;
+    }
+
+    public long getTime() {
+        return now;
+    }
+
+    /**
+     * Checks that every mating animal and its partner agree on each other and that their pair is watched, and returns
+     * the number of pairs.
+     */
+    public int countConsistentPairs() {
+        int pairs = 0;
+        for (int slot = 0; slot < used; slot++) {
+            if (phases[slot] == null) {
+                continue;
+            }
+            int partner = partners[slot];
+            if (partner < 0 || partners[partner] != slot || phases[partner] == null
+                    || !watchdog.isWatched(PairLifecycleTracer.pairKey(slot, partner))) {
+                throw new IllegalStateException("Inconsistent pair at slot " + slot);
+            }
+            if (slot < partner) {
+                pairs++;
+            }
+        }
+        return pairs;
+    }
+
+    private void tick() {
+        now += config.tickMillis;
+        long stageStart = System.nanoTime();
+        runScheduledSearches();
+        stageStart = endStage(Stage.SEARCH, stageStart);
+        moveAnimals();
+        stageStart = endStage(Stage.MOVEMENT, stageStart);
+        checkTargets();
+        stageStart = endStage(Stage.TARGET_CHECK, stageStart);
+        spawnOffspring();
+        stageStart = endStage(Stage.SPAWNING, stageStart);
+        expirePairs();
+        killAnimals();
+        stageStart = endStage(Stage.WATCHDOG, stageStart);
+        moveObserver();
+        foldUnloadedAnimals();
+        if (now >= nextDormantScan) {
+            nextDormantScan = now + config.dormantScanMillis;
+            stepDormantPopulations();
+            materializeNearbyPopulations();
+        }
+        endStage(Stage.DORMANT, stageStart);
+        report.maxInFlightPairs = Math.max(report.maxInFlightPairs, report.inFlightPairs);
+    }
+
+    private long endStage(Stage stage, long stageStart) {
+        long stageEnd = System.nanoTime();
+        report.stageNanos[stage.ordinal()] += stageEnd - stageStart;
+        return stageEnd;
+    }
+
+    /**
+     * Runs the due searches in the order they became due until none is left or the search budget is used up, like
+     * {@code AnimalMatingAuthoritySystem.runScheduledSearches}. The wheel also makes animals ready, which wakes up the
+     * animals around them like activating an animal does.
+     */
+    private void runScheduledSearches() {
+        searchWheel.expire(now, expiredSearches);
+        for (int i = 0; i < expiredSearches.size(); i++) {
+            int slot = expiredSearches.get(i);
+            searchTimeouts[slot] = null;
+            if (!ready[slot]) {
+                ready[slot] = true;
+                resetNearbyBackoff(slot);
+            }
+            queueSearch(slot);
+        }
+        expiredSearches.clear();
+        if (dueSearches.isEmpty()) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + config.searchBudgetNanos;
+        while (!dueSearches.isEmpty()) {
+            if (config.searchBudgetNanos > 0 && System.nanoTime() >= deadline) {
+                report.searchBudgetExhausted++;
+                return;
+            }
+            int slot = dueSearches.poll();
+            if (!due[slot]) {
+                continue;
+            }
+            due[slot] = false;
+            if (!alive[slot] || !ready[slot]) {
+                continue;
+            }
+            if (!isAvailableForMating(slot)) {
+                scheduleSearch(slot, now + config.searchIntervalMillis);
+                continue;
+            }
+            int partner = isBreedingAllowed(slot) ? findMate(slot) : -1;
+            if (partner < 0) {
+                failedSearches[slot] = Math.min(failedSearches[slot] + 1, AnimalMatingAuthoritySystem.MAX_BACKOFF_EXPONENT);
+                scheduleSearch(slot, now + (config.searchIntervalMillis << failedSearches[slot]));
+            } else {
+                failedSearches[slot] = 0;
+                scheduleSearch(slot, now + config.searchIntervalMillis);
+                proposeMating(slot, partner);
+            }
+        }
+    }
+
+    /**
+     * Chooses a mate among the best scored available animals within the search radius.
+     *
+     * @return The slot of the mate, or -1 if there is none.
+     */
+    private int findMate(int slot) {
+        report.searches++;
+        candidateScorer.animal = slot;
+        grid.query(xs[slot], 0, zs[slot], config.searchRadius, candidateScorer);
+        Integer mate = candidates.isEmpty() ? null : candidates.pickWeighted(random);
+        candidates.clear();
+        return mate != null ? mate : -1;
+    }
+
+    private boolean isBreedingAllowed(int slot) {
+        int[] population = regionPopulations.get(regions[slot]);
+        int count = population != null ? population[0] : 0;
+        if (count >= config.regionPopulationCap) {
+            return false;
+        }
+        float load = (float) count / config.regionPopulationCap;
+        return random.nextDouble() >= load * load;
+    }
+
+    private boolean isAvailableForMating(int slot) {
+        return alive[slot] && ready[slot] && phases[slot] == null;
+    }
+
+    /**
+     * Sends the proposal, which the partner handles at once like the proposal and response events. An accepted pair
+     * heads for a meeting point next to its midpoint, as chosen by the rendezvous.
+     */
+    private void proposeMating(int animal, int partner) {
+        report.proposals++;
+        phases[animal] = MatingPhase.PROPOSING;
+        partners[animal] = partner;
+        proposedAt[animal] = now;
+        watch(animal, partner, config.proposalTimeout);
+        if (!isAvailableForMating(partner)) {
+            report.rejectedProposals++;
+            watchdog.unwatch(PairLifecycleTracer.pairKey(animal, partner));
+            phases[animal] = null;
+            partners[animal] = -1;
+            returnToPool(animal);
+            return;
+        }
+        phases[partner] = MatingPhase.PAIRED;
+        partners[partner] = animal;
+        proposedAt[partner] = now;
+        advance(animal, MatingPhase.PAIRED);
+        watch(animal, partner, config.pairedTimeout);
+        report.inFlightPairs++;
+
+        float meetingX = (float) Math.floor((xs[animal] + xs[partner]) / 2);
+        float meetingZ = (float) Math.floor((zs[animal] + zs[partner]) / 2);
+        boolean unreachable = random.nextDouble() < config.unreachableRate;
+        targetXs[animal] = meetingX;
+        targetZs[animal] = meetingZ;
+        targetXs[partner] = meetingX + 1;
+        targetZs[partner] = meetingZ;
+        stuck[animal] = unreachable;
+        stuck[partner] = unreachable;
+    }
+
+    private void moveAnimals() {
+        float seconds = config.tickMillis / 1000f;
+        for (int slot = 0; slot < used; slot++) {
+            if (!alive[slot]) {
+                continue;
+            }
+            MatingPhase phase = phases[slot];
+            if (phase == null) {
+                headings[slot] += (random.nextFloat() - 0.5f) * 0.5f;
+                float step = config.walkSpeed * speeds[slot] * seconds;
+                float x = xs[slot] + (float) Math.cos(headings[slot]) * step;
+                float z = zs[slot] + (float) Math.sin(headings[slot]) * step;
+                float half = config.worldSize / 2;
+                if (Math.abs(x) > half || Math.abs(z) > half) {
+                    headings[slot] += (float) Math.PI;
+                    continue;
+                }
+                moveTo(slot, x, z);
+            } else if (phase == MatingPhase.PAIRED && !stuck[slot]) {
+                float dx = targetXs[slot] - xs[slot];
+                float dz = targetZs[slot] - zs[slot];
+                float distance = (float) Math.sqrt(dx * dx + dz * dz);
+                float step = Math.min(config.runSpeed * speeds[slot] * seconds, distance);
+                if (distance > 0) {
+                    moveTo(slot, xs[slot] + dx / distance * step, zs[slot] + dz / distance * step);
+                }
+            }
+        }
+    }
+
+    private void checkTargets() {
+        for (int slot = 0; slot < used; slot++) {
+            if (!alive[slot] || phases[slot] != MatingPhase.PAIRED) {
+                continue;
+            }
+            float dx = targetXs[slot] - xs[slot];
+            float dz = targetZs[slot] - zs[slot];
+            if (dx * dx + dz * dz > config.targetReachedDistanceSquared) {
+                continue;
+            }
+            advance(slot, MatingPhase.TARGET_REACHED);
+            int partner = partners[slot];
+            if (alive[partner] && phases[partner] == MatingPhase.TARGET_REACHED) {
+                report.proposalToTargetMillis.record(now - proposedAt[slot]);
+                long startTime = System.nanoTime();
+                breed(slot, partner);
+                report.stageNanos[Stage.BREEDING.ordinal()] += System.nanoTime() - startTime;
+            } else {
+                watch(slot, partner, config.targetReachedTimeout);
+            }
+        }
+    }
+
+    /**
+     * Computes the genes of the litter from a snapshot of the parents and queues the offspring, which are spawned a few
+     * per tick like in the genetics system. The parents stop being ready to mate.
+     */
+    private void breed(int animal, int partner) {
+        advance(animal, MatingPhase.BREEDING);
+        advance(partner, MatingPhase.BREEDING);
+        ParentTraitSnapshot parents = new ParentTraitSnapshot(schema, pedigreeIds[animal], genes[animal],
+                pedigreeIds[partner], genes[partner]);
+        int litterSize = litterSizes.next(random);
+        for (int i = 0; i < litterSize; i++) {
+            pendingOffspring.add(new Offspring(parents.breedOffspring(random), pedigreeIds[animal], pedigreeIds[partner],
+                    targetXs[animal], targetZs[animal]));
+        }
+        report.proposalToBirthMillis.record(now - proposedAt[animal]);
+        endPair(animal, partner, true);
+    }
+
+    private void spawnOffspring() {
+        for (int i = 0; i < config.maxOffspringPerTick && !pendingOffspring.isEmpty(); i++) {
+            Offspring offspring = pendingOffspring.poll();
+            float x = offspring.x + (random.nextFloat() - 0.5f) * SPAWN_SPREAD;
+            float z = offspring.z + (random.nextFloat() - 0.5f) * SPAWN_SPREAD;
+            int slot = spawn(offspring.genes, pedigree.add(offspring.parent1, offspring.parent2), x, z);
+            becomeReadyAt(slot, now + config.maturityMillis + exponential(config.readyDelayMillis));
+            report.births++;
+        }
+    }
+
+    /**
+     * Releases the pairs the watchdog gave up on; their animals return to the pool.
+     */
+    private void expirePairs() {
+        watchdog.expire(now, expiredPairs);
+        for (int i = 0; i < expiredPairs.size(); i++) {
+            int[] pair = expiredPairs.get(i);
+            report.expiredPairs++;
+            endPair(pair[0], pair[1], false);
+        }
+        expiredPairs.clear();
+    }
+
+    /**
+     * Lets animals die; the partner of a dead animal waits for the watchdog.
+     */
+    private void killAnimals() {
+        double deathChance = config.deathsPerHour * config.tickMillis / 3_600_000;
+        for (int slot = 0; slot < used; slot++) {
+            if (alive[slot] && random.nextDouble() < deathChance) {
+                report.deaths++;
+                remove(slot);
+                if (phases[slot] == null) {
+                    free(slot);
+                } else {
+                    stuck[partners[slot]] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Folds the animals outside the relevant area which are not mating into the dormant population of their region, as
+     * the dormant population system does when their chunk is unloaded.
+     */
+    private void foldUnloadedAnimals() {
+        for (int slot = 0; slot < used; slot++) {
+            if (!alive[slot] || phases[slot] != null || isWithin(xs[slot], zs[slot], config.relevanceDistance)) {
+                continue;
+            }
+            dormantPopulations.computeIfAbsent(regions[slot], key -> new DormantPopulation("default", "default", key))
+                    .add(genes[slot], xs[slot], 0, zs[slot]);
+            remove(slot);
+            free(slot);
+        }
+    }
+
+    private void stepDormantPopulations() {
+        Iterator<DormantPopulation> iterator = dormantPopulations.values().iterator();
+        while (iterator.hasNext()) {
+            DormantPopulation population = iterator.next();
+            population.step(random, config.dormantBirthRate, config.dormantDeathRate, config.regionPopulationCap, schema);
+            if (population.getCount() == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Recreates the animals of the populations near the observer, at most {@link Config#maxMaterializedPerScan} per
+     * scan. Recreated animals are founders.
+     */
+    private void materializeNearbyPopulations() {
+        int budget = config.maxMaterializedPerScan;
+        Iterator<DormantPopulation> iterator = dormantPopulations.values().iterator();
+        while (budget > 0 && iterator.hasNext()) {
+            DormantPopulation population = iterator.next();
+            if (!isWithin(population.getAnchorX(), population.getAnchorZ(), config.activeDistance)) {
+                continue;
+            }
+            while (budget > 0 && population.getCount() > 0) {
+                long animalGenes = population.removeRandom(random) & schema.getGenomeMask();
+                float spread = DormantPopulationSystem.MATERIALIZE_SPREAD;
+                float x = population.getAnchorX() + (float) random.nextDouble(-spread, spread);
+                float z = population.getAnchorZ() + (float) random.nextDouble(-spread, spread);
+                int slot = spawn(animalGenes, pedigree.add(PedigreeTable.UNKNOWN, PedigreeTable.UNKNOWN), x, z);
+                becomeReadyAt(slot, now + exponential(config.readyDelayMillis));
+                budget--;
+            }
+            if (population.getCount() == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void moveObserver() {
+        double angle = config.observerSpeed * now / 1000.0 / config.observerOrbit;
+        observerX = (float) (Math.cos(angle) * config.observerOrbit);
+        observerZ = (float) (Math.sin(angle) * config.observerOrbit);
+    }
+
+    private boolean isWithin(float x, float z, float distance) {
+        float dx = x - observerX;
+        float dz = z - observerZ;
+        return dx * dx + dz * dz < distance * distance;
+    }
+
+    private void advance(int slot, MatingPhase next) {
+        if (!phases[slot].canAdvanceTo(next)) {
+            throw new IllegalStateException("Cannot advance from " + phases[slot] + " to " + next);
+        }
+        phases[slot] = next;
+    }
+
+    /**
+     * Replaces the deadline of a pair; both animals share one watch, like the pair watches of the mating system.
+     */
+    private void watch(int animal, int partner, long timeout) {
+        watchdog.watch(PairLifecycleTracer.pairKey(animal, partner), new int[]{animal, partner}, now + timeout);
+    }
+
+    /**
+     * Removes the mating state of both animals. Animals which bred are no longer ready; the others return to the pool.
+     */
+    private void endPair(int animal, int partner, boolean bred) {
+        watchdog.unwatch(PairLifecycleTracer.pairKey(animal, partner));
+        report.inFlightPairs--;
+        for (int slot : new int[]{animal, partner}) {
+            phases[slot] = null;
+            partners[slot] = -1;
+            stuck[slot] = false;
+        }
+        for (int slot : new int[]{animal, partner}) {
+            if (!alive[slot]) {
+                free(slot);
+            } else if (bred) {
+                becomeReadyAt(slot, now + exponential(config.readyDelayMillis));
+            } else {
+                returnToPool(slot);
+            }
+        }
+    }
+
+    /**
+     * Lets an animal whose mating was rejected or aborted search again after its normal interval, and wakes up the
+     * animals around it.
+     */
+    private void returnToPool(int slot) {
+        if (!isAvailableForMating(slot)) {
+            return;
+        }
+        failedSearches[slot] = 0;
+        scheduleSearch(slot, now + config.searchIntervalMillis);
+        resetNearbyBackoff(slot);
+    }
+
+    private void resetNearbyBackoff(int slot) {
+        grid.query(xs[slot], 0, zs[slot], config.searchRadius, nearbyAnimals);
+        for (int i = 0; i < nearbyAnimals.size(); i++) {
+            int animal = nearbyAnimals.get(i);
+            if (animal != slot && ready[animal]) {
+                failedSearches[animal] = 0;
+                queueSearch(animal);
+            }
+        }
+        nearbyAnimals.clear();
+    }
+
+    /**
+     * Ends the readiness of an animal, and makes it ready again at the given time.
+     */
+    private void becomeReadyAt(int slot, long readyTime) {
+        ready[slot] = false;
+        due[slot] = false;
+        failedSearches[slot] = 0;
+        scheduleSearch(slot, readyTime);
+    }
+
+    private void scheduleSearch(int slot, long searchTime) {
+        if (searchTimeouts[slot] != null) {
+            searchWheel.cancel(searchTimeouts[slot]);
+        }
+        searchTimeouts[slot] = due[slot] ? null : searchWheel.schedule(slotKeys[slot], searchTime);
+    }
+
+    private void queueSearch(int slot) {
+        if (searchTimeouts[slot] != null) {
+            searchWheel.cancel(searchTimeouts[slot]);
+            searchTimeouts[slot] = null;
+        }
+        if (!due[slot]) {
+            due[slot] = true;
+            dueSearches.add(slotKeys[slot]);
+        }
+    }
+
+    private int spawn(long animalGenes, int pedigreeId, float x, float z) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            if (used == capacity) {
+                grow(capacity * 2);
+            }
+            slot = used++;
+        }
+        alive[slot] = true;
+        xs[slot] = x;
+        zs[slot] = z;
+        regions[slot] = AnimalSpatialIndex.regionKey(x, z);
+        incrementRegion(regions[slot]);
+        grid.put(slotKeys[slot], x, 0, z);
+        headings[slot] = random.nextFloat() * (float) (2 * Math.PI);
+        genes[slot] = animalGenes;
+        speeds[slot] = schema.express(animalGenes, Trait.SPEED);
+        pedigreeIds[slot] = pedigreeId;
+        phases[slot] = null;
+        partners[slot] = -1;
+        report.liveAnimals++;
+        return slot;
+    }
+
+    private void moveTo(int slot, float x, float z) {
+        xs[slot] = x;
+        zs[slot] = z;
+        grid.put(slotKeys[slot], x, 0, z);
+        long region = AnimalSpatialIndex.regionKey(x, z);
+        if (region != regions[slot]) {
+            decrementRegion(regions[slot]);
+            incrementRegion(region);
+            regions[slot] = region;
+        }
+    }
+
+    /**
+     * Removes a live animal from the world; its slot is freed once it is no longer part of a pair.
+     */
+    private void remove(int slot) {
+        alive[slot] = false;
+        ready[slot] = false;
+        due[slot] = false;
+        if (searchTimeouts[slot] != null) {
+            searchWheel.cancel(searchTimeouts[slot]);
+            searchTimeouts[slot] = null;
+        }
+        grid.remove(slotKeys[slot]);
+        decrementRegion(regions[slot]);
+        report.liveAnimals--;
+    }
+
+    private void free(int slot) {
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private void incrementRegion(long region) {
+        int[] population = regionPopulations.get(region);
+        if (population == null) {
+            population = new int[1];
+            regionPopulations.put(region, population);
+        }
+        population[0]++;
+    }
+
+    private void decrementRegion(long region) {
+        int[] population = regionPopulations.get(region);
+        if (population != null && --population[0] <= 0) {
+            regionPopulations.remove(region);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow(int newCapacity) {
+        slotKeys = capacity == 0 ? new Integer[newCapacity] : Arrays.copyOf(slotKeys, newCapacity);
+        for (int slot = capacity; slot < newCapacity; slot++) {
+            slotKeys[slot] = slot;
+        }
+        alive = capacity == 0 ? new boolean[newCapacity] : Arrays.copyOf(alive, newCapacity);
+        ready = capacity == 0 ? new boolean[newCapacity] : Arrays.copyOf(ready, newCapacity);
+        xs = capacity == 0 ? new float[newCapacity] : Arrays.copyOf(xs, newCapacity);
+        zs = capacity == 0 ? new float[newCapacity] : Arrays.copyOf(zs, newCapacity);
+        regions = capacity == 0 ? new long[newCapacity] : Arrays.copyOf(regions, newCapacity);
+        headings = capacity == 0 ? new float[newCapacity] : Arrays.copyOf(headings, newCapacity);
+        speeds = capacity == 0 ? new float[newCapacity] : Arrays.copyOf(speeds, newCapacity);
+        genes = capacity == 0 ? new long[newCapacity] : Arrays.copyOf(genes, newCapacity);
+        pedigreeIds = capacity == 0 ? new int[newCapacity] : Arrays.copyOf(pedigreeIds, newCapacity);
+        phases = capacity == 0 ? new MatingPhase[newCapacity] : Arrays.copyOf(phases, newCapacity);
+        partners = capacity == 0 ? new int[newCapacity] : Arrays.copyOf(partners, newCapacity);
+        targetXs = capacity == 0 ? new float[newCapacity] : Arrays.copyOf(targetXs, newCapacity);
+        targetZs = capacity == 0 ? new float[newCapacity] : Arrays.copyOf(targetZs, newCapacity);
+        stuck = capacity == 0 ? new boolean[newCapacity] : Arrays.copyOf(stuck, newCapacity);
+        proposedAt = capacity == 0 ? new long[newCapacity] : Arrays.copyOf(proposedAt, newCapacity);
+        searchTimeouts = capacity == 0 ? new TimingWheel.Timeout[newCapacity] : Arrays.copyOf(searchTimeouts, newCapacity);
+        due = capacity == 0 ? new boolean[newCapacity] : Arrays.copyOf(due, newCapacity);
+        failedSearches = capacity == 0 ? new int[newCapacity] : Arrays.copyOf(failedSearches, newCapacity);
+        freeSlots = capacity == 0 ? new int[newCapacity] : Arrays.copyOf(freeSlots, newCapacity);
+        capacity = newCapacity;
+    }
+
+    private long exponential(long mean) {
+        return (long) (-Math.log(1 - random.nextDouble()) * mean);
+    }
+
+    /**
+     * Scores the candidates of a search like the candidate scorer of the mating system: proximity plus the fitness of
+     * the speed, minus the weighted kinship. Unavailable and too closely related candidates are skipped.
+     */
+    private final class CandidateScorer implements SpatialHashGrid.Visitor<Integer> {
+        private int animal;
+
+        @Override
+        public void visit(Integer candidate, float distanceSquared) {
+            if (candidate == animal || !isAvailableForMating(candidate)) {
+                return;
+            }
+            double kinship = pedigree.getKinship(pedigreeIds[animal], pedigreeIds[candidate]);
+            if (kinship > config.maxKinship) {
+                return;
+            }
+            float proximity = Math.max(0f, 1f - (float) Math.sqrt(distanceSquared) / config.searchRadius);
+            float fitness = schema.expressNormalized(genes[candidate], Trait.SPEED);
+            candidates.offer(candidate, config.proximityWeight * proximity + config.fitnessWeight * fitness
+                    - config.kinshipWeight * kinship);
+        }
+    }
+
+    private static final class Offspring {
+        private final long genes;
+        private final int parent1;
+        private final int parent2;
+        private final float x;
+        private final float z;
+
+        private Offspring(long genes, int parent1, int parent2, float x, float z) {
+            this.genes = genes;
+            this.parent1 = parent1;
+            this.parent2 = parent2;
+            this.x = x;
+            this.z = z;
+        }
+    }
+}
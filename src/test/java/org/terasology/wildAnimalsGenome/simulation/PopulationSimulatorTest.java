@@ -0,0 +1,51 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PopulationSimulatorTest {
+    private static final long FIVE_MINUTES = 300_000;
+
+    @Test
+    public void testAnimalsBreedAndPairsStayConsistent() {
+        PopulationSimulator.Config config = createConfig(1);
+        PopulationSimulator simulator = new PopulationSimulator(config);
+
+        PopulationSimulator.Report report = simulator.run(FIVE_MINUTES);
+
+        assertEquals(FIVE_MINUTES, report.simulatedMillis);
+        assertTrue(report.births > 0);
+        assertTrue(report.expiredPairs > 0);
+        assertTrue(report.dormantAnimals > 0);
+        assertEquals(report.inFlightPairs, simulator.countConsistentPairs());
+        assertTrue(report.maxInFlightPairs * 2 <= config.animalCount + report.births);
+        assertTrue(report.proposalToBirthMillis.getCount() > 0);
+    }
+
+    @Test
+    public void testSameSeedGivesSameResult() {
+        PopulationSimulator.Report first = new PopulationSimulator(createConfig(7)).run(FIVE_MINUTES);
+        PopulationSimulator.Report second = new PopulationSimulator(createConfig(7)).run(FIVE_MINUTES);
+
+        assertEquals(first.births, second.births);
+        assertEquals(first.proposals, second.proposals);
+        assertEquals(first.liveAnimals, second.liveAnimals);
+        assertEquals(first.dormantAnimals, second.dormantAnimals);
+    }
+
+    private static PopulationSimulator.Config createConfig(long seed) {
+        PopulationSimulator.Config config = new PopulationSimulator.Config();
+        config.seed = seed;
+        config.animalCount = 1000;
+        config.worldSize = 320;
+        config.observerOrbit = 80;
+        config.readyDelayMillis = 30_000;
+        config.unreachableRate = 0.1;
+        config.searchBudgetNanos = 0;
+        return config;
+    }
+}
@@ -0,0 +1,73 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IntAliasSamplerTest {
+    private static final int DRAWS = 1_000_000;
+
+    @Test
+    public void testDistributionMatchesWeights() {
+        double[] weights = {95, 4.5, 0.5};
+        IntAliasSampler sampler = new IntAliasSampler(weights, new int[]{1, 2, 3});
+
+        int[] counts = draw(sampler, 4, new SplittableRandom(1));
+
+        assertEquals(0, counts[0]);
+        assertEquals(0.95, (double) counts[1] / DRAWS, 0.002);
+        assertEquals(0.045, (double) counts[2] / DRAWS, 0.001);
+        assertEquals(0.005, (double) counts[3] / DRAWS, 0.0005);
+    }
+
+    @Test
+    public void testUnnormalizedWeights() {
+        IntAliasSampler sampler = new IntAliasSampler(new double[]{1, 3}, new int[]{0, 1});
+
+        int[] counts = draw(sampler, 2, new SplittableRandom(2));
+
+        assertEquals(0.25, (double) counts[0] / DRAWS, 0.002);
+        assertEquals(0.75, (double) counts[1] / DRAWS, 0.002);
+    }
+
+    @Test
+    public void testNonPositiveWeightsAreNeverDrawn() {
+        IntAliasSampler sampler = new IntAliasSampler(new double[]{0, 2, -1, 2}, new int[]{0, 1, 2, 3});
+
+        int[] counts = draw(sampler, 4, new SplittableRandom(3));
+
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[2]);
+        assertEquals(0.5, (double) counts[1] / DRAWS, 0.002);
+    }
+
+    @Test
+    public void testSingleValue() {
+        IntAliasSampler sampler = new IntAliasSampler(new double[]{0.1}, new int[]{7});
+        SplittableRandom random = new SplittableRandom(4);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(7, sampler.next(random));
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new IntAliasSampler(new double[0], new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> new IntAliasSampler(new double[]{1, 2}, new int[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> new IntAliasSampler(new double[]{0, -1}, new int[]{1, 2}));
+    }
+
+    private static int[] draw(IntAliasSampler sampler, int valueCount, SplittableRandom random) {
+        int[] counts = new int[valueCount];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[sampler.next(random)]++;
+        }
+        return counts;
+    }
+}
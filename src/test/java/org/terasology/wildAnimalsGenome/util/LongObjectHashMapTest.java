@@ -0,0 +1,83 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertNull(map.put(1L, "one"));
+        assertNull(map.put(-1L, "minus one"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertEquals("one", map.put(1L, "uno"));
+
+        assertEquals(3, map.size());
+        assertEquals("uno", map.get(1L));
+        assertEquals("minus one", map.get(-1L));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertNull(map.get(2L));
+
+        assertEquals("minus one", map.remove(-1L));
+        assertNull(map.remove(-1L));
+        assertFalse(map.containsKey(-1L));
+        assertTrue(map.containsKey(1L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int i = 0; i < 100_000; i++) {
+            // A small key range makes collisions, growth and removals inside probe runs frequent.
+            long key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -1000; key < 1000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long key = 0; key < 100; key++) {
+            map.put(key << 32, "value");
+        }
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        map.put(5L, "five");
+        assertEquals("five", map.get(5L));
+    }
+
+    @Test
+    public void testRejectsNullValues() {
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectHashMap<String>().put(1L, null));
+    }
+}
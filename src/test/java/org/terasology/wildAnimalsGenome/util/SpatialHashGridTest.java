@@ -0,0 +1,170 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpatialHashGridTest {
+
+    @Test
+    public void testQueryReturnsItemsWithinRadius() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(8);
+        grid.put("origin", 0, 0, 0);
+        grid.put("near", 3, 4, 0);
+        grid.put("edge", 0, 0, 5);
+        grid.put("far", 5, 5, 5);
+        grid.put("otherCell", -9, 0, 0);
+
+        assertEquals(Set.of("origin", "near", "edge"), query(grid, 0, 0, 0, 5));
+        assertEquals(Set.of("otherCell"), query(grid, -9, 1, 0, 2));
+    }
+
+    @Test
+    public void testQueryCrossesCellBoundaries() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(4);
+        grid.put("left", -0.5f, 0, 0);
+        grid.put("right", 0.5f, 0, 0);
+        grid.put("below", 0, -0.5f, 0);
+
+        assertEquals(Set.of("left", "right", "below"), query(grid, 0, 0, 0, 1));
+    }
+
+    @Test
+    public void testVisitorReceivesSquaredDistance() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(8);
+        grid.put("near", 3, 4, 0);
+
+        List<Float> distances = new ArrayList<>();
+        grid.query(0, 0, 0, 10, (item, distanceSquared) -> distances.add(distanceSquared));
+
+        assertEquals(List.of(25f), distances);
+    }
+
+    @Test
+    public void testMoveWithinAndAcrossCells() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(8);
+        grid.put("animal", 1, 0, 0);
+        grid.put("animal", 2, 0, 0);
+        assertEquals(1, grid.size());
+        assertEquals(Set.of("animal"), query(grid, 2, 0, 0, 0.5f));
+        assertEquals(Set.of(), query(grid, 1, 0, 0, 0.5f));
+
+        grid.put("animal", 100, 0, 0);
+        assertEquals(1, grid.size());
+        assertEquals(Set.of(), query(grid, 2, 0, 0, 10));
+        assertEquals(Set.of("animal"), query(grid, 100, 0, 0, 1));
+    }
+
+    @Test
+    public void testRemove() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(8);
+        grid.put("first", 0, 0, 0);
+        grid.put("second", 1, 0, 0);
+        grid.put("third", 2, 0, 0);
+
+        grid.remove("first");
+        grid.remove("missing");
+
+        assertFalse(grid.contains("first"));
+        assertTrue(grid.contains("second"));
+        assertEquals(2, grid.size());
+        assertEquals(Set.of("second", "third"), query(grid, 0, 0, 0, 5));
+
+        grid.remove("second");
+        grid.remove("third");
+        assertEquals(0, grid.size());
+        assertEquals(Set.of(), query(grid, 0, 0, 0, 5));
+    }
+
+    @Test
+    public void testRemoveFromCrowdedCellInAnyOrder() {
+        SpatialHashGrid<Integer> grid = new SpatialHashGrid<>(8);
+        Set<Integer> remaining = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            grid.put(i, i * 0.1f, 0, 0);
+            remaining.add(i);
+        }
+
+        // Removing from the middle, the start and the end moves the last entry of the cell into the freed slot.
+        for (int item : new int[]{7, 0, 19, 12, 1, 18, 8}) {
+            grid.remove(item);
+            remaining.remove(item);
+            List<Integer> result = new ArrayList<>();
+            grid.query(0, 0, 0, 5, result);
+            assertEquals(remaining, new HashSet<>(result));
+            assertEquals(remaining.size(), result.size());
+        }
+        grid.put(3, 20, 0, 0);
+        grid.remove(4);
+        remaining.remove(3);
+        remaining.remove(4);
+        List<Integer> result = new ArrayList<>();
+        grid.query(0, 0, 0, 5, result);
+        assertEquals(remaining, new HashSet<>(result));
+    }
+
+    @Test
+    public void testQueryOnlyScansOverlappingCells() {
+        SpatialHashGrid<Integer> grid = new SpatialHashGrid<>(4);
+        for (int i = 0; i < 100; i++) {
+            grid.put(i, i * 10, 0, 0);
+        }
+
+        int scanned = grid.query(0, 0, 0, 1, new ArrayList<>());
+
+        assertEquals(1, scanned);
+    }
+
+    @Test
+    public void testQueryBoxReturnsItemsOfOneChunk() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(10);
+        grid.put("inside", 5, 60, 31.5f);
+        grid.put("minCorner", 0, 0, 0);
+        grid.put("maxCornerOfNextChunk", 32, 0, 0);
+        grid.put("nextChunkAbove", 5, 64, 5);
+        grid.put("previousChunk", -0.5f, 10, 10);
+
+        List<String> result = new ArrayList<>();
+        grid.queryBox(0, 0, 0, 32, 64, 32, result);
+
+        assertEquals(Set.of("inside", "minCorner"), new HashSet<>(result));
+    }
+
+    @Test
+    public void testAdjacentBoxesPartitionItems() {
+        SpatialHashGrid<Integer> grid = new SpatialHashGrid<>(10);
+        for (int i = 0; i < 64; i++) {
+            grid.put(i, i, 0, 0);
+        }
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+
+        grid.queryBox(0, 0, 0, 32, 1, 1, first);
+        grid.queryBox(32, 0, 0, 64, 1, 1, second);
+
+        assertEquals(32, first.size());
+        assertEquals(32, second.size());
+        assertTrue(first.stream().allMatch(i -> i < 32));
+    }
+
+    @Test
+    public void testRejectsNonPositiveCellSize() {
+        assertThrows(IllegalArgumentException.class, () -> new SpatialHashGrid<String>(0));
+    }
+
+    private static Set<String> query(SpatialHashGrid<String> grid, float x, float y, float z, float radius) {
+        List<String> result = new ArrayList<>();
+        grid.query(x, y, z, radius, result);
+        return new HashSet<>(result);
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.wildAnimalsGenome.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTest {
+    private static final long TICK = 100;
+
+    @Test
+    public void testExpiresAfterDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, TICK, 0);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("item", 250);
+
+        assertEquals(List.of(), expire(wheel, 200));
+        assertTrue(timeout.isScheduled());
+        // The deadline is rounded up to the next tick.
+        assertEquals(List.of("item"), expire(wheel, 300));
+        assertFalse(timeout.isScheduled());
+        assertEquals(0, wheel.size());
+        assertEquals(List.of(), expire(wheel, 400));
+    }
+
+    @Test
+    public void testMultiRoundExpiry() {
+        // One revolution takes 800 ms, so these deadlines share slots with earlier ones and wait for later rounds.
+        TimingWheel<String> wheel = new TimingWheel<>(8, TICK, 0);
+        wheel.schedule("first", 300);
+        wheel.schedule("second", 1100);
+        wheel.schedule("third", 2700);
+
+        assertEquals(List.of("first"), expire(wheel, 300));
+        assertEquals(List.of(), expire(wheel, 1000));
+        assertEquals(List.of("second"), expire(wheel, 1100));
+        assertEquals(List.of(), expire(wheel, 2600));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("third"), expire(wheel, 2700));
+    }
+
+    @Test
+    public void testMultiRoundExpiryInOneLateCall() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(4, TICK, 0);
+        for (int i = 1; i <= 20; i++) {
+            wheel.schedule(i, i * TICK);
+        }
+
+        List<Integer> expired = expire(wheel, 1000);
+
+        assertEquals(10, expired.size());
+        assertTrue(expired.containsAll(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)));
+        assertEquals(10, wheel.size());
+        assertEquals(10, expire(wheel, 2000).size());
+    }
+
+    @Test
+    public void testPastDeadlineExpiresOnNextCall() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, TICK, 1000);
+        expire(wheel, 1500);
+
+        wheel.schedule("late", 100);
+
+        assertEquals(List.of("late"), expire(wheel, 1600));
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, TICK, 0);
+        TimingWheel.Timeout<String> first = wheel.schedule("first", 100);
+        TimingWheel.Timeout<String> second = wheel.schedule("second", 100);
+        wheel.schedule("third", 100);
+
+        wheel.cancel(second);
+        wheel.cancel(second);
+        assertEquals(2, wheel.size());
+        assertEquals(List.of("third", "first"), expire(wheel, 100));
+
+        wheel.cancel(first);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(6, TICK, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(8, 0, 0));
+    }
+
+    private static <T> List<T> expire(TimingWheel<T> wheel, long now) {
+        List<T> expired = new ArrayList<>();
+        assertEquals(wheel.expire(now, expired), expired.size());
+        return expired;
+    }
+}